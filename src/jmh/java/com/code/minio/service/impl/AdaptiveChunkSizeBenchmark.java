@@ -0,0 +1,61 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.UploadProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应分片大小的推荐与样本记录耗时
+ * 推荐在初始化上传时调用，样本在每个分片完成时记录，多线程下同一网段的模型共享同一把锁
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdaptiveChunkSizeBenchmark {
+
+    private static final long MB = 1024 * 1024;
+    private static final String NETWORK = "10.0.0.0/24";
+
+    private AdaptiveChunkSizeService adaptiveChunkSizeService;
+
+    @Setup
+    public void setUp() {
+        adaptiveChunkSizeService = new AdaptiveChunkSizeService(new UploadProperties(), new MinioChunkUploadService());
+        for (int concurrency = 1; concurrency <= 16; concurrency *= 2) {
+            for (int i = 0; i < 8; i++) {
+                adaptiveChunkSizeService.record(NETWORK, 16 * MB, 2_000_000_000L, concurrency);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> recommend() {
+        return adaptiveChunkSizeService.recommend(NETWORK, 2048 * MB);
+    }
+
+    @Benchmark
+    public Map<String, Object> recommendWithoutSamples() {
+        return adaptiveChunkSizeService.recommend("unknown", 2048 * MB);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordConcurrently() {
+        adaptiveChunkSizeService.record(NETWORK, 16 * MB, 2_000_000_000L, 4);
+    }
+}
@@ -0,0 +1,128 @@
+package com.code.minio.util;
+
+import com.code.minio.config.AsyncProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同步与异步模式在相同总线程数下每秒完成的上传数
+ * 同步模式32个请求线程，任务在请求线程中执行；异步模式8个请求线程加24个I/O线程，均经AsyncIoExecutor提交。
+ * MinIO端的响应由单独的调度线程模拟，每次上传耗时20ms，不计入线程数。
+ * nonBlockingUploads对应MinioAsyncClient上传（compose）：异步模式下请求线程发起调用后即释放，吞吐不受线程数限制；
+ * blockingUploads对应AmazonS3/MinioClient上传（respond）：阻塞调用在两种模式下都各占一个线程，
+ * 异步模式只有I/O线程执行上传，吞吐低于同步模式，收益在于隔离和池满时的503，而不是容量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncIoExecutorBenchmark {
+
+    private static final int REQUEST_THREADS = 8;
+    private static final int IO_THREADS = 24;
+    private static final int TOTAL_THREADS = REQUEST_THREADS + IO_THREADS;
+    private static final int UPLOADS = 256;
+    private static final long UPLOAD_MILLIS = 20;
+
+    @Param({"false", "true"})
+    private boolean async;
+
+    private ExecutorService requestThreads;
+    private ThreadPoolTaskExecutor ioExecutor;
+    private ThreadPoolTaskExecutor streamExecutor;
+    private ScheduledExecutorService minio;
+    private AsyncIoExecutor asyncIoExecutor;
+
+    @Setup
+    public void setUp() {
+        requestThreads = Executors.newFixedThreadPool(async ? REQUEST_THREADS : TOTAL_THREADS);
+        ioExecutor = executor(IO_THREADS);
+        streamExecutor = executor(1);
+        minio = Executors.newSingleThreadScheduledExecutor();
+        AsyncProperties asyncProperties = new AsyncProperties();
+        asyncProperties.setEnabled(async);
+        asyncIoExecutor = new AsyncIoExecutor(asyncProperties, ioExecutor, streamExecutor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestThreads.shutdown();
+        ioExecutor.shutdown();
+        streamExecutor.shutdown();
+        minio.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPLOADS)
+    public int nonBlockingUploads() throws InterruptedException {
+        return run(() -> asyncIoExecutor.compose(() -> {
+            CompletableFuture<Integer> response = new CompletableFuture<>();
+            minio.schedule(() -> response.complete(200), UPLOAD_MILLIS, TimeUnit.MILLISECONDS);
+            return response;
+        }));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPLOADS)
+    public int blockingUploads() throws InterruptedException {
+        return run(() -> asyncIoExecutor.respond(() -> {
+            Thread.sleep(UPLOAD_MILLIS);
+            return ResponseEntity.ok(Map.<String, Object>of("code", 200));
+        }).thenApply(response -> response.getStatusCode().value()));
+    }
+
+    /**
+     * 由请求线程发起全部上传，返回成功的上传数
+     */
+    private int run(Request request) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(UPLOADS);
+        AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < UPLOADS; i++) {
+            requestThreads.execute(() -> request.handle().whenComplete((status, e) -> {
+                if (e == null && status == 200) {
+                    succeeded.incrementAndGet();
+                }
+                done.countDown();
+            }));
+        }
+        done.await();
+        return succeeded.get();
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(UPLOADS);
+        executor.initialize();
+        return executor;
+    }
+
+    private interface Request {
+        CompletableFuture<Integer> handle();
+    }
+}
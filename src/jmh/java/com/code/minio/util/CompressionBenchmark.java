@@ -0,0 +1,72 @@
+package com.code.minio.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各类内容按压缩级别的流式压缩/解压耗时，每次操作处理一个8MB样本
+ * 吞吐量(MB/s) = 8 / 每次操作的秒数；压缩率范围见CompressionCodecTests
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int SIZE = 8 * 1024 * 1024;
+
+    @Param({"json", "log", "pdf", "binary"})
+    private String type;
+
+    @Param({"1", "6", "9"})
+    private int level;
+
+    private byte[] original;
+    private byte[] compressed;
+    private final byte[] buffer = new byte[64 * 1024];
+
+    @Setup
+    public void setUp() throws IOException {
+        original = CompressionSamples.all(SIZE).get(type);
+        try (InputStream in = CompressionCodec.GZIP.compress(new ByteArrayInputStream(original), level)) {
+            compressed = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public void compress(Blackhole blackhole) throws IOException {
+        drain(CompressionCodec.GZIP.compress(new ByteArrayInputStream(original), level), blackhole);
+    }
+
+    @Benchmark
+    public void decompress(Blackhole blackhole) throws IOException {
+        drain(CompressionCodec.GZIP.decompress(new ByteArrayInputStream(compressed)), blackhole);
+    }
+
+    private void drain(InputStream in, Blackhole blackhole) throws IOException {
+        try (in) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                blackhole.consume(n);
+            }
+        }
+        blackhole.consume(buffer);
+    }
+}
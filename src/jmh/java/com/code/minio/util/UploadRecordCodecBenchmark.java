@@ -0,0 +1,98 @@
+package com.code.minio.util;
+
+import com.code.minio.model.UploadPartRecord;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片记录的编解码耗时对比
+ * 对比RedisTemplate使用的GenericJackson2JsonRedisSerializer（带@class类型信息）、
+ * 之前写入Redis的JSON字符串和UploadRecordCodec的二进制编码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UploadRecordCodecBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final GenericJackson2JsonRedisSerializer REDIS_JSON = new GenericJackson2JsonRedisSerializer();
+
+    private final UploadPartRecord part = new UploadPartRecord(1234, "9b2cf535f27731c974343645a3985328",
+            8L * 1024 * 1024, 1705300000000L, 2350);
+
+    private byte[] redisJson;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        redisJson = REDIS_JSON.serialize(toMap(part));
+        json = MAPPER.writeValueAsBytes(toMap(part));
+        binary = UploadRecordCodec.encode(part);
+    }
+
+    @Benchmark
+    public byte[] encodeGenericJson() {
+        return REDIS_JSON.serialize(toMap(part));
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return MAPPER.writeValueAsBytes(toMap(part));
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return UploadRecordCodec.encode(part);
+    }
+
+    @Benchmark
+    public UploadPartRecord decodeGenericJson() {
+        return fromMap((Map<?, ?>) REDIS_JSON.deserialize(redisJson));
+    }
+
+    @Benchmark
+    public UploadPartRecord decodeJson() throws IOException {
+        return fromMap(MAPPER.readValue(json, new TypeReference<Map<String, Object>>() {}));
+    }
+
+    @Benchmark
+    public UploadPartRecord decodeBinary() {
+        return UploadRecordCodec.decode(binary);
+    }
+
+    private static Map<String, Object> toMap(UploadPartRecord part) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("partNumber", part.getPartNumber());
+        map.put("etag", part.getEtag());
+        map.put("partSize", part.getPartSize());
+        map.put("uploadTime", part.getUploadTime());
+        map.put("durationMillis", part.getDurationMillis());
+        return map;
+    }
+
+    private static UploadPartRecord fromMap(Map<?, ?> map) {
+        return new UploadPartRecord((Integer) map.get("partNumber"), (String) map.get("etag"),
+                ((Number) map.get("partSize")).longValue(), ((Number) map.get("uploadTime")).longValue(),
+                ((Number) map.get("durationMillis")).longValue());
+    }
+}
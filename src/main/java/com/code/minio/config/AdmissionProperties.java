@@ -0,0 +1,144 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上传接口准入控制配置
+ * 请求数和字节数各有一个全局令牌桶和按租户的令牌桶，超限时直接返回429；
+ * 同时进行的上传请求数由自适应并发上限控制，上限随请求耗时的变化增减
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.admission")
+@Data
+public class AdmissionProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 受控的接口路径（Ant风格）
+     */
+    private List<String> paths = new ArrayList<>(List.of(
+            "/api/multipart/upload-part",
+            "/api/multipart/*/parts/*",
+            "/minio/upload",
+            "/minio/image",
+            "/minio/pdf",
+            "/minio/batch",
+            "/minio/batch/tar"));
+
+    /**
+     * 标识租户的请求头，只采用受信任代理（minio.proxy.trusted-proxies）转发的请求中的值；
+     * 已认证的请求按用户名区分，其余请求按客户端地址区分
+     */
+    private String tenantHeader = "X-Tenant-Id";
+
+    /**
+     * 长度未知（chunked）的请求体先按该字节数计费，读取超过已计费字节数时每次再追加该字节数
+     */
+    private long unknownLengthBytes = 8L * 1024 * 1024;
+
+    /**
+     * 全局令牌桶
+     */
+    private Limit global = new Limit(500, 1000, 512L * 1024 * 1024, 1024L * 1024 * 1024);
+
+    /**
+     * 每个租户的默认令牌桶
+     */
+    private Limit tenant = new Limit(50, 100, 64L * 1024 * 1024, 128L * 1024 * 1024);
+
+    /**
+     * 按租户覆盖默认令牌桶
+     */
+    private Map<String, Limit> tenants = new HashMap<>();
+
+    /**
+     * 本地快速判断：先在本节点按同样的速率判断，本地已超限的请求不再访问Redis；Redis不可用时以本地结果为准
+     */
+    private boolean localFastPath = true;
+
+    /**
+     * 本地令牌桶的条目上限，超过后淘汰最久未使用的租户
+     */
+    private long localBucketsSize = 10000;
+
+    /**
+     * 自适应并发上限
+     */
+    private Concurrency concurrency = new Concurrency();
+
+    /**
+     * 令牌桶参数，速率为0表示不限制
+     */
+    @Data
+    public static class Limit {
+
+        /**
+         * 每秒请求数与突发请求数
+         */
+        private double requestsPerSecond;
+        private long requestBurst;
+
+        /**
+         * 每秒字节数与突发字节数，按请求的Content-Length计算
+         */
+        private double bytesPerSecond;
+        private long bytesBurst;
+
+        public Limit() {
+        }
+
+        public Limit(double requestsPerSecond, long requestBurst, double bytesPerSecond, long bytesBurst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.requestBurst = requestBurst;
+            this.bytesPerSecond = bytesPerSecond;
+            this.bytesBurst = bytesBurst;
+        }
+    }
+
+    /**
+     * AIMD并发上限：MinIO上传调用按字节归一化耗时的短期均值明显高于长期均值或请求以5xx结束时按比例降低上限，
+     * 否则在并发接近上限时每个成功请求增加1/上限（约每轮增加1）
+     */
+    @Data
+    public static class Concurrency {
+
+        private boolean enabled = true;
+
+        private int initialLimit = 32;
+        private int minLimit = 4;
+        private int maxLimit = 256;
+
+        /**
+         * 每次降低时乘以的比例
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * 短期均值超过长期均值的倍数时认为MinIO开始排队
+         */
+        private double tolerance = 2.0;
+
+        /**
+         * 两次降低之间的最短间隔，避免同一波慢请求连续降低多次
+         */
+        private Duration decreaseInterval = Duration.ofSeconds(1);
+
+        /**
+         * 被拒绝时建议客户端等待的时间
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+}
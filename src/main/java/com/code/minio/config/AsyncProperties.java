@@ -0,0 +1,49 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 控制器异步模式配置
+ * 开启后MinioAsyncClient调用直接以CompletableFuture返回；AmazonS3和MinioClient的阻塞调用在独立的有界I/O线程池中执行，
+ * 与请求线程隔离，池满时返回503。读取请求体和写出响应体的流式任务使用单独的流式线程池，慢速客户端不占用I/O线程
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.async")
+@Data
+public class AsyncProperties {
+
+    /**
+     * 是否开启异步模式，关闭时任务在请求线程中同步执行
+     */
+    private boolean enabled = true;
+
+    /**
+     * I/O线程数，即同时进行的MinIO读写上限
+     */
+    private int ioThreads = 64;
+
+    /**
+     * I/O任务等待队列长度，队列满时返回503
+     */
+    private int ioQueueCapacity = 256;
+
+    /**
+     * 流式线程数，即同时读取请求体（流式分片、tar导入）或写出响应体（代理下载、对象列表）的客户端上限
+     */
+    private int streamThreads = 128;
+
+    /**
+     * 流式任务等待队列长度，队列满时返回503
+     */
+    private int streamQueueCapacity = 64;
+
+    /**
+     * 异步请求超时时间，需覆盖大分片在慢速网络下的上传时间和代理下载的传输时间
+     */
+    private Duration requestTimeout = Duration.ofMinutes(30);
+
+}
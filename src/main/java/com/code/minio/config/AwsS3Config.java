@@ -1,12 +1,17 @@
 package com.code.minio.config;
 
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.code.minio.service.impl.AdmissionControlService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,6 +22,12 @@ public class AwsS3Config {
     @Autowired
     private MinioProperties minioProperties;
 
+    @Autowired
+    private HttpProperties httpProperties;
+
+    @Autowired
+    private AdmissionControlService admissionControlService;
+
     @Bean
     public AmazonS3 amazonS3Client() {
         // 创建AWS凭证
@@ -28,6 +39,15 @@ public class AwsS3Config {
         // 客户端配置
         ClientConfiguration clientConfiguration = new ClientConfiguration();
         clientConfiguration.setSignerOverride("AWSS3V4SignerType");
+        // 连接池与MinIO客户端使用相同的上限（AWS SDK使用自己的Apache HttpClient连接池，无法与OkHttp共享）
+        clientConfiguration.setMaxConnections(httpProperties.getMaxRequestsPerHost());
+        clientConfiguration.setConnectionTimeout((int) httpProperties.getConnectTimeout().toMillis());
+        clientConfiguration.setSocketTimeout((int) httpProperties.getReadTimeout().toMillis());
+        clientConfiguration.setConnectionMaxIdleMillis(httpProperties.getKeepAlive().toMillis());
+        clientConfiguration.setUseTcpKeepAlive(true);
+        if (httpProperties.getSendBufferSize() > 0 || httpProperties.getReceiveBufferSize() > 0) {
+            clientConfiguration.setSocketBufferSizeHints(httpProperties.getSendBufferSize(), httpProperties.getReceiveBufferSize());
+        }
 
         // 构建S3客户端，配置为使用MinIO
         return AmazonS3ClientBuilder.standard()
@@ -36,6 +56,42 @@ public class AwsS3Config {
                 .withCredentials(new AWSStaticCredentialsProvider(credentials))
                 .withPathStyleAccessEnabled(true) // MinIO使用路径样式访问
                 .withClientConfiguration(clientConfiguration)
+                .withRequestHandlers(new CallTimingHandler(admissionControlService))
                 .build();
     }
+
+    /**
+     * 带请求体的S3调用成功结束时，把调用耗时和上传字节数交给准入控制，用于调整上传并发上限
+     */
+    private static class CallTimingHandler extends RequestHandler2 {
+        private static final HandlerContextKey<Long> START_NANOS = new HandlerContextKey<>("callStartNanos");
+
+        private final AdmissionControlService admissionControlService;
+
+        CallTimingHandler(AdmissionControlService admissionControlService) {
+            this.admissionControlService = admissionControlService;
+        }
+
+        @Override
+        public void beforeRequest(Request<?> request) {
+            request.addHandlerContext(START_NANOS, System.nanoTime());
+        }
+
+        @Override
+        public void afterResponse(Request<?> request, Response<?> response) {
+            Long start = request.getHandlerContext(START_NANOS);
+            String contentLength = request.getHeaders().get("Content-Length");
+            if (start == null || contentLength == null) {
+                return;
+            }
+            try {
+                long bytes = Long.parseLong(contentLength);
+                if (bytes > 0) {
+                    admissionControlService.recordMinioLatency(System.nanoTime() - start, bytes);
+                }
+            } catch (NumberFormatException e) {
+                // 忽略无法识别的长度
+            }
+        }
+    }
 }
\ No newline at end of file
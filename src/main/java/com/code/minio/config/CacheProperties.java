@@ -0,0 +1,73 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 热点对象读缓存配置
+ * 小对象放在堆内存层，中等对象放在本地磁盘层（内存映射读取），更大的对象不缓存
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.cache")
+@Data
+public class CacheProperties {
+
+    /**
+     * 是否开启读缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 堆内存层的字节预算
+     */
+    private long heapBudget = 64L * 1024 * 1024;
+
+    /**
+     * 进入堆内存层的对象大小上限（字节）
+     */
+    private long heapMaxObjectSize = 256 * 1024;
+
+    /**
+     * 磁盘层的字节预算
+     */
+    private long diskBudget = 1024L * 1024 * 1024;
+
+    /**
+     * 进入磁盘层的对象大小上限（字节）
+     */
+    private long diskMaxObjectSize = 16L * 1024 * 1024;
+
+    /**
+     * 磁盘层目录，为空时使用系统临时目录下的minio-object-cache；启动时清空
+     */
+    private String diskDir;
+
+    /**
+     * 缓存条目在此时间内直接使用，超过后用statObject比较ETag向MinIO重新验证
+     */
+    private Duration revalidateAfter = Duration.ofSeconds(30);
+
+    /**
+     * 对象在此时间内第二次未命中时才读入缓存，只访问一次的对象不占用读取和磁盘写入
+     */
+    private Duration admissionWindow = Duration.ofMinutes(10);
+
+    /**
+     * 记录最近未命中对象的条目上限
+     */
+    private long admissionTrackerSize = 100_000;
+
+    /**
+     * 后台读入缓存的线程数
+     */
+    private int fillThreads = 2;
+
+    /**
+     * 后台读入任务的队列长度，队列满时放弃读入
+     */
+    private int fillQueueCapacity = 64;
+
+}
@@ -0,0 +1,33 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 上传压缩配置
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.compression")
+@Data
+public class CompressionProperties {
+
+    /**
+     * 业务类型到压缩格式的映射，如 pdf: gzip；未配置的业务类型不压缩
+     */
+    private Map<String, String> codecs = new HashMap<>();
+
+    /**
+     * 压缩级别（1-9），越大压缩率越高、速度越慢
+     */
+    private int level = 6;
+
+    /**
+     * 小于该大小（字节）的文件不压缩
+     */
+    private long minSize = 4096;
+
+}
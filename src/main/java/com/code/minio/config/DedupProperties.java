@@ -0,0 +1,31 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按内容去重配置
+ * 客户端在初始化上传时声明文件的SHA-256，内容已存在时不再传输数据
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.dedup")
+@Data
+public class DedupProperties {
+
+    /**
+     * 是否开启去重
+     */
+    private boolean enabled = true;
+
+    /**
+     * 命中时的处理方式：reference 直接返回已有对象；copy 在服务端复制出一个新对象
+     */
+    private String mode = "reference";
+
+    /**
+     * copy模式下单次复制的大小上限（字节），超过时退回reference
+     */
+    private long maxCopySize = 5L * 1024 * 1024 * 1024;
+
+}
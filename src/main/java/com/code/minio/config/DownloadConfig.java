@@ -0,0 +1,22 @@
+package com.code.minio.config;
+
+import com.code.minio.util.BufferPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DownloadConfig {
+
+    @Autowired
+    private DownloadProperties downloadProperties;
+
+    /**
+     * 代理下载共享的缓冲区池，每个下载请求借用一个缓冲区，限制下载占用的堆内存
+     */
+    @Bean
+    public BufferPool downloadBufferPool() {
+        return BufferPool.ofBudget(downloadProperties.getBufferSize(),
+                downloadProperties.getMaxInFlightBytes(), false);
+    }
+}
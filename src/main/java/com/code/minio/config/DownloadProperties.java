@@ -0,0 +1,57 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 下载链路配置
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.download")
+@Data
+public class DownloadProperties {
+
+    /**
+     * 代理下载时每个请求占用的缓冲区大小（字节）
+     */
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * 所有代理下载共享的内存预算（字节），缓冲区个数 = 预算 / 缓冲区大小
+     */
+    private long maxInFlightBytes = 32L * 1024 * 1024;
+
+    /**
+     * 等待空闲缓冲区的最长时间，超时则返回503
+     */
+    private Duration bufferAcquireTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 并行下载到本地文件时每个字节范围的大小（字节）
+     */
+    private long rangeSize = 8L * 1024 * 1024;
+
+    /**
+     * 单个文件同时下载的范围数
+     */
+    private int rangeConcurrency = 8;
+
+    /**
+     * 下载线程池大小，所有并行下载任务共用
+     */
+    private int rangeThreads = 16;
+
+    /**
+     * 单个范围失败后的最大重试次数
+     */
+    private int maxRetries = 3;
+
+    /**
+     * 重试间隔，第n次重试等待n倍间隔
+     */
+    private Duration retryBackoff = Duration.ofMillis(500);
+
+}
@@ -0,0 +1,145 @@
+package com.code.minio.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 后台任务线程池
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Autowired
+    private AsyncProperties asyncProperties;
+
+    @Autowired
+    private DownloadProperties downloadProperties;
+
+    @Autowired
+    private ImageProperties imageProperties;
+
+    @Autowired
+    private ListProperties listProperties;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    /**
+     * 清理分片源对象等后台删除任务，队列满时拒绝，由调用方记录日志后放弃；
+     * 不在提交线程中执行，避免合并请求被批量删除拖慢，遗留的 .compose/ 中间对象由后台清理任务回收
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cleanupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadProperties.getCleanupThreads());
+        executor.setMaxPoolSize(uploadProperties.getCleanupThreads());
+        executor.setQueueCapacity(uploadProperties.getCleanupQueueCapacity());
+        executor.setThreadNamePrefix("minio-cleanup-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 控制器异步模式下执行阻塞S3调用的有界线程池，不读取请求体，队列满时拒绝任务，由调用方返回503
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ioExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncProperties.getIoThreads());
+        executor.setMaxPoolSize(asyncProperties.getIoThreads());
+        executor.setQueueCapacity(asyncProperties.getIoQueueCapacity());
+        executor.setThreadNamePrefix("minio-io-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 流式线程池，执行读取请求体的上传和Spring MVC的异步任务（StreamingResponseBody等）
+     * 执行时间取决于客户端网速，与ioExecutor分开，慢速客户端占满时不影响初始化、合并等短小的S3调用；队列满时拒绝任务，由调用方返回503
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncProperties.getStreamThreads());
+        executor.setMaxPoolSize(asyncProperties.getStreamThreads());
+        executor.setQueueCapacity(asyncProperties.getStreamQueueCapacity());
+        executor.setThreadNamePrefix("minio-stream-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 并行范围下载线程池，读取对象内容并写入本地文件；队列满时由提交线程执行，形成背压
+     */
+    @Bean
+    public ThreadPoolTaskExecutor downloadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(downloadProperties.getRangeThreads());
+        executor.setMaxPoolSize(downloadProperties.getRangeThreads());
+        executor.setQueueCapacity(downloadProperties.getRangeThreads() * 4);
+        executor.setThreadNamePrefix("minio-download-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 图片衍生图线程池，队列满时拒绝任务，由调用方跳过本次生成，不阻塞上传请求
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageProperties.getWorkerThreads());
+        executor.setMaxPoolSize(imageProperties.getWorkerThreads());
+        executor.setQueueCapacity(imageProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("minio-image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 对象列表预取线程池，每个日期前缀占用一个线程
+     * 准入由ObjectListingService在响应前按线程数预留；队列只用于吸收已结束的列表线程尚未退出时的短暂重叠
+     */
+    @Bean
+    public ThreadPoolTaskExecutor listExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(listProperties.getThreads());
+        executor.setMaxPoolSize(listProperties.getThreads());
+        executor.setQueueCapacity(listProperties.getThreads());
+        executor.setThreadNamePrefix("minio-list-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 热点对象后台读入线程池，队列满时拒绝任务，由调用方放弃本次读入
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cacheFillExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cacheProperties.getFillThreads());
+        executor.setMaxPoolSize(cacheProperties.getFillThreads());
+        executor.setQueueCapacity(cacheProperties.getFillQueueCapacity());
+        executor.setThreadNamePrefix("minio-cache-fill-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,51 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 访问MinIO的HTTP连接配置
+ * MinioClient和MinioAsyncClient共用一个OkHttpClient（连接池与调度器），AmazonS3按同样的上限配置自己的连接池
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.http")
+@Data
+public class HttpProperties {
+
+    /**
+     * 连接池保留的最大空闲连接数
+     */
+    private int maxIdleConnections = 64;
+
+    /**
+     * 空闲连接保活时间
+     */
+    private Duration keepAlive = Duration.ofMinutes(5);
+
+    /**
+     * 同时执行的最大异步请求数
+     */
+    private int maxRequests = 256;
+
+    /**
+     * 对同一主机同时执行的最大请求数（OkHttp默认只有5个），同时作为AmazonS3的最大连接数
+     */
+    private int maxRequestsPerHost = 64;
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    private Duration readTimeout = Duration.ofMinutes(5);
+
+    private Duration writeTimeout = Duration.ofMinutes(5);
+
+    /**
+     * TCP发送/接收缓冲区大小（字节），0表示使用系统默认值
+     */
+    private int sendBufferSize = 0;
+
+    private int receiveBufferSize = 0;
+
+}
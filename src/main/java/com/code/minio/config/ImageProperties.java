@@ -0,0 +1,78 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图片衍生图配置：上传图片后在后台生成的缩放版本
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.image")
+@Data
+public class ImageProperties {
+
+    /**
+     * 衍生图对象的前缀，对象名为 前缀/版本名/原对象名.格式
+     */
+    private String derivedPrefix = "derived";
+
+    /**
+     * 生成衍生图的线程数
+     */
+    private int workerThreads = 2;
+
+    /**
+     * 等待生成的任务队列长度，队列满时跳过本次衍生图生成
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 生成衍生图的原图大小上限（字节），超过时不生成
+     */
+    private long maxSourceBytes = 20L * 1024 * 1024;
+
+    /**
+     * 生成衍生图的原图像素数（宽 × 高）上限，超过时不解码；解码后每像素约占4字节堆内存
+     */
+    private long maxSourcePixels = 40_000_000L;
+
+    /**
+     * 已提交且尚未处理完的原图字节数上限，超过时跳过本次衍生图生成
+     */
+    private long maxPendingBytes = 128L * 1024 * 1024;
+
+    /**
+     * 衍生图版本
+     */
+    private List<Variant> variants = new ArrayList<>(List.of(
+            new Variant("thumb", 128, 128, "jpg", 0.8f),
+            new Variant("medium", 512, 512, "jpg", 0.85f)));
+
+    @Data
+    public static class Variant {
+        private String name;
+        /** 最大宽度，图片按比例缩放到不超过该尺寸，不放大 */
+        private int width;
+        private int height;
+        /** 输出格式：jpg或png */
+        private String format = "jpg";
+        /** jpg压缩质量（0-1） */
+        private float quality = 0.8f;
+
+        public Variant() {
+        }
+
+        public Variant(String name, int width, int height, String format, float quality) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.quality = quality;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对象列表接口配置
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.list")
+@Data
+public class ListProperties {
+
+    /**
+     * 按日期范围列出时同时预取的日期前缀数
+     */
+    private int prefixConcurrency = 4;
+
+    /**
+     * 每个日期前缀预取队列的条目上限，内存占用不超过 prefixConcurrency × 该值 个条目
+     */
+    private int prefetchCapacity = 1000;
+
+    /**
+     * 列表线程池大小
+     */
+    private int threads = 16;
+
+    /**
+     * 单次查询的日期范围上限（天）
+     */
+    private int maxDays = 366;
+
+    /**
+     * 单次响应默认返回的条目数
+     */
+    private int defaultLimit = 1000;
+
+    /**
+     * 单次响应最多返回的条目数，超过后通过continuationToken继续
+     */
+    private int maxLimit = 100000;
+
+}
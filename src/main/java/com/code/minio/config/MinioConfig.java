@@ -1,35 +1,193 @@
 package com.code.minio.config;
 
+import com.code.minio.service.impl.AdmissionControlService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
 import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class MinioConfig {
 
     @Autowired
     private MinioProperties minioProperties;
 
+    @Autowired
+    private HttpProperties httpProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AdmissionControlService admissionControlService;
+
+    /**
+     * MinioClient和MinioAsyncClient共用的HTTP客户端，共享连接池和调度器
+     */
     @Bean
-    public MinioClient minioClient() throws Exception {
+    public OkHttpClient minioHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(httpProperties.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(httpProperties.getMaxRequestsPerHost());
+        ConnectionPool connectionPool = new ConnectionPool(httpProperties.getMaxIdleConnections(),
+                httpProperties.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+
+        Timer acquireTimer = Timer.builder("minio.http.connection.acquire")
+                .description("请求开始到拿到连接的等待时间（含调度排队和建连）")
+                .register(meterRegistry);
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .connectTimeout(httpProperties.getConnectTimeout())
+                .readTimeout(httpProperties.getReadTimeout())
+                .writeTimeout(httpProperties.getWriteTimeout())
+                .eventListenerFactory(call -> new CallTimingListener(acquireTimer, admissionControlService));
+        if (httpProperties.getSendBufferSize() > 0 || httpProperties.getReceiveBufferSize() > 0) {
+            builder.socketFactory(new BufferSizingSocketFactory(SocketFactory.getDefault(),
+                    httpProperties.getSendBufferSize(), httpProperties.getReceiveBufferSize()));
+        }
+        OkHttpClient client = builder.build();
+
+        Gauge.builder("minio.http.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .tag("state", "total").register(meterRegistry);
+        Gauge.builder("minio.http.pool.connections", connectionPool, ConnectionPool::idleConnectionCount)
+                .tag("state", "idle").register(meterRegistry);
+        Gauge.builder("minio.http.pool.connections", connectionPool,
+                        pool -> pool.connectionCount() - pool.idleConnectionCount())
+                .tag("state", "active").register(meterRegistry);
+        Gauge.builder("minio.http.dispatcher.calls", dispatcher, Dispatcher::runningCallsCount)
+                .tag("state", "running").register(meterRegistry);
+        Gauge.builder("minio.http.dispatcher.calls", dispatcher, Dispatcher::queuedCallsCount)
+                .tag("state", "queued").register(meterRegistry);
+        return client;
+    }
+
+    @Bean
+    public MinioClient minioClient(OkHttpClient minioHttpClient) throws Exception {
         return MinioClient.builder()
                 .endpoint(minioProperties.getEndpoint())
                 .credentials(minioProperties.getUsername(), minioProperties.getPassword())
-                .httpClient(new OkHttpClient())
+                .httpClient(minioHttpClient)
                 .build();
     }
 
 
     @Bean
-    public MinioAsyncClient minioAsyncClient() throws Exception {
+    public MinioAsyncClient minioAsyncClient(OkHttpClient minioHttpClient) throws Exception {
         return MinioAsyncClient.builder()
                 .endpoint(minioProperties.getEndpoint())
                 .credentials(minioProperties.getUsername(), minioProperties.getPassword())
-                .httpClient(new OkHttpClient())
+                .httpClient(minioHttpClient)
                 .build();
     }
 
+    /**
+     * 记录每次调用从callStart到第一次connectionAcquired的耗时
+     * 异步调用在enqueue时即触发callStart，因此包含在Dispatcher中排队的时间；
+     * 带请求体的调用结束时把调用耗时和上传字节数交给准入控制，用于调整上传并发上限
+     */
+    private static class CallTimingListener extends EventListener {
+        private final Timer timer;
+        private final AdmissionControlService admissionControlService;
+        private long startNanos;
+        private boolean recorded;
+        private long requestBytes;
+
+        CallTimingListener(Timer timer, AdmissionControlService admissionControlService) {
+            this.timer = timer;
+            this.admissionControlService = admissionControlService;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            if (!recorded && startNanos != 0) {
+                recorded = true;
+                timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestBytes += byteCount;
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            if (requestBytes > 0 && startNanos != 0) {
+                admissionControlService.recordMinioLatency(System.nanoTime() - startNanos, requestBytes);
+            }
+        }
+    }
+
+    /**
+     * 创建Socket时设置TCP发送/接收缓冲区，需在建连之前设置才能影响窗口协商
+     */
+    private static class BufferSizingSocketFactory extends SocketFactory {
+        private final SocketFactory delegate;
+        private final int sendBufferSize;
+        private final int receiveBufferSize;
+
+        BufferSizingSocketFactory(SocketFactory delegate, int sendBufferSize, int receiveBufferSize) {
+            this.delegate = delegate;
+            this.sendBufferSize = sendBufferSize;
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        private Socket configure(Socket socket) throws IOException {
+            if (sendBufferSize > 0) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+            if (receiveBufferSize > 0) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configure(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return configure(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return configure(delegate.createSocket(address, port, localAddress, localPort));
+        }
+    }
+
 }
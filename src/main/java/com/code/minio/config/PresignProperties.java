@@ -0,0 +1,39 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 预签名URL缓存配置
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.presign")
+@Data
+public class PresignProperties {
+
+    /**
+     * 最多缓存的URL个数
+     */
+    private long cacheSize = 10000;
+
+    /**
+     * 缓存时间占URL有效期的比例，URL在剩余有效期不足(1 - 该比例)之前就被淘汰
+     */
+    private double lifetimeFraction = 0.5;
+
+    /**
+     * 批量签名接口单次最多签名的对象数
+     */
+    private int maxBatch = 1000;
+
+    /**
+     * 批量签名接口允许的HTTP方法；接口未做身份认证，默认只允许只读方法，写入类URL不对外签发
+     */
+    private Set<String> allowedMethods = new LinkedHashSet<>(List.of("GET", "HEAD"));
+
+}
@@ -0,0 +1,24 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 反向代理配置
+ * 只有来自这些地址的请求才信任X-Forwarded-For等由代理填写的请求头，其它请求按连接的对端地址识别客户端
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.proxy")
+@Data
+public class ProxyProperties {
+
+    /**
+     * 受信任的代理地址，支持单个IP或CIDR（如 10.0.0.0/8）；为空时不信任任何代理
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+}
@@ -0,0 +1,61 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 后台清理配置
+ * 定时中止没有会话的过期分片上传，删除合并遗留的中间对象
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.reaper")
+@Data
+public class ReaperProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 两次清理之间的间隔，以及应用启动后第一次清理前的等待时间
+     */
+    private Duration interval = Duration.ofHours(1);
+    private Duration initialDelay = Duration.ofMinutes(5);
+
+    /**
+     * 要清理的桶，为空时只清理默认桶
+     */
+    private List<String> buckets = new ArrayList<>();
+
+    /**
+     * 分片上传初始化超过该时间且Redis中已没有会话时中止，需大于会话的过期时间
+     */
+    private Duration staleAfter = Duration.ofHours(24);
+
+    /**
+     * 合并中间对象的最后修改时间超过该时间时删除
+     */
+    private Duration composeTempMaxAge = Duration.ofHours(24);
+
+    /**
+     * 每页列出的分片上传数/对象数
+     */
+    private int pageSize = 1000;
+
+    /**
+     * 每秒最多发出的清理请求数（列分片、中止上传、批量删除），避免影响正常读写
+     */
+    private double maxRequestsPerSecond = 20;
+
+    /**
+     * 集群租约的有效期，清理过程中每页续期一次；续期失败说明租约已被其他节点取得，本节点停止清理
+     */
+    private Duration leaseTtl = Duration.ofMinutes(10);
+
+}
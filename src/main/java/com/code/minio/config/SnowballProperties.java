@@ -0,0 +1,41 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 小文件批量导入配置
+ * 小文件攒成批次，每批打成一个tar通过uploadSnowballObjects上传，由MinIO解包成独立对象
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.snowball")
+@Data
+public class SnowballProperties {
+
+    /**
+     * 每批最多的文件数
+     */
+    private int batchMaxFiles = 1000;
+
+    /**
+     * 每批文件的总字节数上限，tar在内存中组装，该值同时是单次导入的内存上限
+     */
+    private long batchMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 进入批次的单个文件大小上限（字节），更大的文件单独putObject
+     */
+    private long maxFileSize = 4L * 1024 * 1024;
+
+    /**
+     * 是否用snappy压缩tar
+     */
+    private boolean compression = true;
+
+    /**
+     * 单次请求最多导入的文件数
+     */
+    private int maxFiles = 100000;
+
+}
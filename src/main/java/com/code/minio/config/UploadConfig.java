@@ -0,0 +1,31 @@
+package com.code.minio.config;
+
+import com.code.minio.util.BufferPool;
+import com.code.minio.util.MemoryBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UploadConfig {
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    /**
+     * 流式分片上传共享的缓冲区池，限制所有在途分片占用的堆内存
+     */
+    @Bean
+    public BufferPool uploadBufferPool() {
+        return BufferPool.ofBudget(uploadProperties.getStreamBufferSize(),
+                uploadProperties.getMaxInFlightBytes(), false);
+    }
+
+    /**
+     * 服务端流水线分片上传共享的内存预算，各次上传的分片大小不同，每次上传使用自己的缓冲区池并从该预算中扣减
+     */
+    @Bean
+    public MemoryBudget pipelineMemoryBudget() {
+        return new MemoryBudget(uploadProperties.getPipelineBufferBudget());
+    }
+}
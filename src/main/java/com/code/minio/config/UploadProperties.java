@@ -0,0 +1,137 @@
+package com.code.minio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 上传链路配置
+ */
+@Component
+@ConfigurationProperties(prefix = "minio.upload")
+@Data
+public class UploadProperties {
+
+    /**
+     * 流式分片上传时每个分片占用的缓冲区大小（字节），需大于AWS SDK的mark读取上限(128KB)
+     */
+    private int streamBufferSize = 256 * 1024;
+
+    /**
+     * 所有流式分片上传共享的内存预算（字节），缓冲区个数 = 预算 / 缓冲区大小
+     */
+    private long maxInFlightBytes = 64L * 1024 * 1024;
+
+    /**
+     * 等待空闲缓冲区的最长时间，超时则拒绝请求
+     */
+    private Duration bufferAcquireTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 服务端流水线分片上传时同时在途的uploadPart请求数
+     */
+    private int pipelineConcurrency = 4;
+
+    /**
+     * 本节点所有流水线上传共享的缓冲区内存上限（字节），预算不足时读线程等待其他上传归还缓冲区
+     */
+    private long pipelineBufferBudget = 512L * 1024 * 1024;
+
+    /**
+     * 分片直传预签名URL的有效期
+     */
+    private Duration presignedPartExpiry = Duration.ofHours(1);
+
+    /**
+     * 单次请求最多签名的分片数
+     */
+    private int maxPresignBatch = 1000;
+
+    /**
+     * 断点续传时MinIO分片列表的缓存时间
+     */
+    private Duration resumeCacheTtl = Duration.ofMinutes(5);
+
+    /**
+     * 合并时每个compose请求的源对象个数，超过时先分批合并成中间对象
+     */
+    private int composeBatchSize = 100;
+
+    /**
+     * 同时进行的分批合并数
+     */
+    private int composeConcurrency = 4;
+
+    /**
+     * 后台清理源对象的线程数与队列长度
+     */
+    private int cleanupThreads = 2;
+    private int cleanupQueueCapacity = 100;
+
+    /**
+     * 本地会话缓存的条目上限与过期时间，会话完成或取消时通过Redis频道通知所有节点失效
+     */
+    private long sessionCacheSize = 10000;
+    private Duration sessionCacheTtl = Duration.ofMinutes(5);
+
+    /**
+     * 自适应分片大小配置
+     */
+    private Adaptive adaptive = new Adaptive();
+
+    /**
+     * 对冲上传配置
+     */
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * 进行中的分片耗时超过已完成分片耗时中位数的该倍数时，建议客户端重复发送该分片
+         */
+        private double overdueMultiplier = 3.0;
+
+        /**
+         * 已完成分片少于该数量时样本不足，不给出建议
+         */
+        private int minSamples = 3;
+
+        /**
+         * 进行中的分片至少经过该时间才会被判定为超时
+         */
+        private Duration minOverdue = Duration.ofSeconds(5);
+
+        /**
+         * 进行中的分片超过该时间仍未完成时视为已中断（如处理节点宕机），不再建议对冲
+         */
+        private Duration staleAfter = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Adaptive {
+
+        /**
+         * 单个分片期望的上传耗时，分片大小按实测吞吐量向该值靠拢
+         */
+        private Duration targetPartLatency = Duration.ofSeconds(10);
+
+        /**
+         * 没有测量数据时建议的并发数
+         */
+        private int defaultParallelism = 4;
+
+        /**
+         * 建议并发数上限
+         */
+        private int maxParallelism = 16;
+
+        /**
+         * 最多保留的网络模型个数（按客户端网段区分）
+         */
+        private int maxNetworks = 10000;
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.code.minio.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private AsyncProperties asyncProperties;
+
+    @Autowired
+    private ThreadPoolTaskExecutor streamExecutor;
+
+    /**
+     * 异步请求（Callable、StreamingResponseBody等）使用流式线程池执行，超时时间按大文件上传配置
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamExecutor);
+        configurer.setDefaultTimeout(asyncProperties.getRequestTimeout().toMillis());
+    }
+}
@@ -1,16 +1,39 @@
 package com.code.minio.controller;
 
+import com.amazonaws.services.s3.model.PartETag;
+import com.code.minio.config.UploadProperties;
+import com.code.minio.model.CompletePartsRequest;
+import com.code.minio.service.impl.AdaptiveChunkSizeService;
 import com.code.minio.service.impl.AwsS3MultipartService;
+import com.code.minio.service.impl.UploadResumeService;
+import com.code.minio.util.AsyncIoExecutor;
+import com.code.minio.util.ClientAddressResolver;
+import com.code.minio.util.BufferPool;
+import com.code.minio.util.PooledBufferInputStream;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 基于AmazonS3的分片上传接口
+ * AmazonS3只有阻塞API，各接口经AsyncIoExecutor在有界I/O线程池中执行：每个进行中的S3请求仍占用一个I/O线程，
+ * 收益是S3调用与Tomcat工作线程隔离、池满时返回503，而不是非阻塞I/O；
+ * 流式分片上传边读请求体边上传，在单独的流式线程池中执行，慢速客户端不占用其他接口的I/O线程
+ */
 @RestController
 @RequestMapping("/api/multipart")
 @Slf4j
@@ -19,196 +42,500 @@ public class AwsS3MultipartController {
     @Autowired
     private AwsS3MultipartService multipartService;
 
+    @Autowired
+    private UploadResumeService uploadResumeService;
+
+    @Autowired
+    private AdaptiveChunkSizeService adaptiveChunkSizeService;
+
+    @Autowired
+    private BufferPool uploadBufferPool;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Autowired
+    private AsyncIoExecutor asyncIoExecutor;
+
+    @Autowired
+    private ClientAddressResolver clientAddressResolver;
+
     /**
      * 初始化分片上传
      */
     @PostMapping("/initiate")
-    public ResponseEntity<Map<String, Object>> initiateMultipartUpload(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> initiateMultipartUpload(
             @RequestParam("fileName") String fileName,
-            @RequestParam(value = "contentType", required = false) String contentType) {
-        
-        try {
-            Map<String, Object> result = multipartService.initiateMultipartUpload(fileName, contentType);
+            @RequestParam(value = "contentType", required = false) String contentType,
+            @RequestParam(value = "fileSize", required = false) Long fileSize,
+            @RequestParam(value = "sha256", required = false) String sha256,
+            HttpServletRequest request) {
+        return asyncIoExecutor.respond(() -> {
+            try {
+                // 同时提供sha256和fileSize时先按内容去重，命中则不需要上传
+                Map<String, Object> result = multipartService.initiateMultipartUpload(fileName, contentType, sha256, fileSize);
+                if (Boolean.TRUE.equals(result.get("deduplicated"))) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("code", 200);
+                    response.put("message", "文件已存在，无需上传");
+                    response.put("data", result);
+                    return ResponseEntity.ok(response);
+                }
+                // 提供文件大小时，一并返回按客户端网络推荐的分片大小和并发数
+                if (fileSize != null && fileSize > 0) {
+                    result.put("recommendation", adaptiveChunkSizeService.recommend(networkKey(request), fileSize));
+                }
+            
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "初始化分片上传成功");
+                response.put("data", result);
+            
+                return ResponseEntity.ok(response);
+            
+            } catch (Exception e) {
+                log.error("初始化分片上传失败: {}", e.getMessage(), e);
+            
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "初始化分片上传失败: " + e.getMessage());
             
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
+    }
+
+    /**
+     * 按客户端网络的实测吞吐量推荐分片大小和并发数
+     */
+    @GetMapping("/recommend")
+    public ResponseEntity<Map<String, Object>> recommendPartSize(
+            @RequestParam("fileSize") long fileSize,
+            HttpServletRequest request) {
+
+        try {
+            Map<String, Object> result = adaptiveChunkSizeService.recommend(networkKey(request), fileSize);
+
             Map<String, Object> response = new HashMap<>();
             response.put("code", 200);
-            response.put("message", "初始化分片上传成功");
+            response.put("message", "获取分片建议成功");
             response.put("data", result);
-            
+
             return ResponseEntity.ok(response);
-            
+
         } catch (Exception e) {
-            log.error("初始化分片上传失败: {}", e.getMessage(), e);
-            
+            log.error("获取分片建议失败: fileSize={}, error={}", fileSize, e.getMessage(), e);
+
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("code", 500);
-            errorResponse.put("message", "初始化分片上传失败: " + e.getMessage());
-            
+            errorResponse.put("message", "获取分片建议失败: " + e.getMessage());
+
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
 
+    /**
+     * 初始化分片上传并返回第一批分片直传的预签名URL
+     */
+    @PostMapping("/initiate-presigned")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> initiatePresignedUpload(
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "contentType", required = false) String contentType,
+            @RequestParam(value = "partCount", defaultValue = "100") int partCount) {
+        return asyncIoExecutor.respond(() -> {
+            try {
+                Map<String, Object> result = multipartService.initiateMultipartUpload(fileName, contentType);
+                String uploadId = (String) result.get("uploadId");
+                Map<String, Object> presigned = multipartService.presignUploadParts(uploadId, 1, partCount);
+                result.put("parts", presigned.get("parts"));
+                result.put("expiration", presigned.get("expiration"));
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "初始化分片上传成功");
+                response.put("data", result);
+
+                return ResponseEntity.ok(response);
+
+            } catch (Exception e) {
+                log.error("初始化分片直传失败: {}", e.getMessage(), e);
+
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "初始化分片上传失败: " + e.getMessage());
+
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
+    }
+
+    /**
+     * 批量获取分片直传的预签名URL
+     */
+    @PostMapping("/presign-parts")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> presignUploadParts(
+            @RequestParam("uploadId") String uploadId,
+            @RequestParam(value = "startPart", defaultValue = "1") int startPart,
+            @RequestParam("endPart") int endPart) {
+        return asyncIoExecutor.respond(() -> {
+            try {
+                Map<String, Object> result = multipartService.presignUploadParts(uploadId, startPart, endPart);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "生成预签名URL成功");
+                response.put("data", result);
+
+                return ResponseEntity.ok(response);
+
+            } catch (Exception e) {
+                log.error("生成预签名URL失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "生成预签名URL失败: " + e.getMessage());
+
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
+    }
+
     /**
      * 上传分片
      */
     @PostMapping("/upload-part")
-    public ResponseEntity<Map<String, Object>> uploadPart(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> uploadPart(
             @RequestParam("uploadId") String uploadId,
             @RequestParam("partNumber") int partNumber,
             @RequestParam("file") MultipartFile file) {
-        
-        try {
-            // 验证分片号
-            if (partNumber < 1 || partNumber > 10000) {
+        return asyncIoExecutor.respond(() -> {
+            try {
+                // 验证分片号
+                if (partNumber < 1 || partNumber > 10000) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("code", 400);
+                    errorResponse.put("message", "分片号必须在1-10000之间");
+                    return ResponseEntity.badRequest().body(errorResponse);
+                }
+            
+                // 验证文件大小（AWS S3要求除最后一个分片外，每个分片至少5MB）
+                if (file.getSize() < 5 * 1024 * 1024) {
+                    log.warn("分片大小小于5MB: {} bytes", file.getSize());
+                }
+            
+                // 分片在进入控制器前已被完整接收，这里的耗时只反映本服务到MinIO的传输，不计入客户端网络的吞吐量
+                Map<String, Object> result = multipartService.uploadPart(uploadId, partNumber, file);
+            
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "分片上传成功");
+                response.put("data", result);
+            
+                return ResponseEntity.ok(response);
+            
+            } catch (Exception e) {
+                log.error("分片上传失败: uploadId={}, partNumber={}, error={}", 
+                        uploadId, partNumber, e.getMessage(), e);
+            
                 Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("code", 400);
-                errorResponse.put("message", "分片号必须在1-10000之间");
-                return ResponseEntity.badRequest().body(errorResponse);
-            }
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "分片上传失败: " + e.getMessage());
             
-            // 验证文件大小（AWS S3要求除最后一个分片外，每个分片至少5MB）
-            if (file.getSize() < 5 * 1024 * 1024) {
-                log.warn("分片大小小于5MB: {} bytes", file.getSize());
+                return ResponseEntity.status(500).body(errorResponse);
             }
-            
-            Map<String, Object> result = multipartService.uploadPart(uploadId, partNumber, file);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("code", 200);
-            response.put("message", "分片上传成功");
-            response.put("data", result);
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("分片上传失败: uploadId={}, partNumber={}, error={}", 
-                    uploadId, partNumber, e.getMessage(), e);
-            
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("code", 500);
-            errorResponse.put("message", "分片上传失败: " + e.getMessage());
-            
-            return ResponseEntity.status(500).body(errorResponse);
-        }
+        });
+    }
+
+    /**
+     * 流式上传分片：请求体即分片数据（Content-Type: application/octet-stream），
+     * 直接经池化缓冲区转发给S3，不经过MultipartFile解析和临时文件
+     */
+    @PutMapping("/{uploadId}/parts/{partNumber}")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> uploadPartStream(
+            @PathVariable("uploadId") String uploadId,
+            @PathVariable("partNumber") int partNumber,
+            HttpServletRequest request) {
+        return asyncIoExecutor.stream(request, () -> {
+            ByteBuffer buffer = null;
+            try {
+                // 验证分片号
+                if (partNumber < 1 || partNumber > 10000) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("code", 400);
+                    errorResponse.put("message", "分片号必须在1-10000之间");
+                    return ResponseEntity.badRequest().body(errorResponse);
+                }
+
+                // 流式上传必须预先知道分片大小
+                long contentLength = request.getContentLengthLong();
+                if (contentLength <= 0) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("code", 411);
+                    errorResponse.put("message", "流式上传必须携带Content-Length");
+                    return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).body(errorResponse);
+                }
+
+                // 从共享缓冲区池借出缓冲区，内存预算耗尽时直接拒绝，避免堆内存无限增长
+                buffer = uploadBufferPool.acquire(
+                        uploadProperties.getBufferAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                if (buffer == null) {
+                    log.warn("上传缓冲区已耗尽: uploadId={}, partNumber={}, inUse={}",
+                            uploadId, partNumber, uploadBufferPool.getInUse());
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("code", 503);
+                    errorResponse.put("message", "服务繁忙，请稍后重试");
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(errorResponse);
+                }
+
+                Map<String, Object> result;
+                try (InputStream inputStream = new PooledBufferInputStream(
+                        request.getInputStream(), contentLength, uploadBufferPool, buffer)) {
+                    // 缓冲区的归还交给流的close
+                    buffer = null;
+                    AdaptiveChunkSizeService.PartTimer timer = adaptiveChunkSizeService.start(networkKey(request));
+                    boolean success = false;
+                    try {
+                        result = multipartService.uploadPart(uploadId, partNumber, inputStream, contentLength);
+                        success = true;
+                    } finally {
+                        adaptiveChunkSizeService.finish(timer, contentLength, success);
+                    }
+                }
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "分片上传成功");
+                response.put("data", result);
+
+                return ResponseEntity.ok(response);
+
+            } catch (Exception e) {
+                log.error("流式分片上传失败: uploadId={}, partNumber={}, error={}",
+                        uploadId, partNumber, e.getMessage(), e);
+
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "分片上传失败: " + e.getMessage());
+
+                return ResponseEntity.status(500).body(errorResponse);
+            } finally {
+                uploadBufferPool.release(buffer);
+            }
+        });
     }
 
     /**
      * 完成分片上传
      */
     @PostMapping("/complete")
-    public ResponseEntity<Map<String, Object>> completeMultipartUpload(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> completeMultipartUpload(
             @RequestParam("uploadId") String uploadId) {
-        
-        try {
-            Map<String, Object> result = multipartService.completeMultipartUpload(uploadId);
+        return asyncIoExecutor.respond(() -> {
+            try {
+                Map<String, Object> result = multipartService.completeMultipartUpload(uploadId);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("code", 200);
-            response.put("message", "分片上传完成");
-            response.put("data", result);
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "分片上传完成");
+                response.put("data", result);
             
-            return ResponseEntity.ok(response);
+                return ResponseEntity.ok(response);
             
-        } catch (Exception e) {
-            log.error("完成分片上传失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+            } catch (Exception e) {
+                log.error("完成分片上传失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
             
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("code", 500);
-            errorResponse.put("message", "完成分片上传失败: " + e.getMessage());
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "完成分片上传失败: " + e.getMessage());
             
-            return ResponseEntity.status(500).body(errorResponse);
-        }
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
+    }
+
+    /**
+     * 完成预签名直传的分片上传，客户端上报的ETag会与MinIO中的分片核对
+     */
+    @PostMapping("/complete-presigned")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> completePresignedUpload(
+            @RequestBody CompletePartsRequest request) {
+        return asyncIoExecutor.respond(() -> {
+            try {
+                List<PartETag> partETags = request.getParts() == null ? List.of() : request.getParts().stream()
+                        .map(part -> {
+                            if (part.getPartNumber() == null) {
+                                throw new IllegalArgumentException("分片号不能为空");
+                            }
+                            return new PartETag(part.getPartNumber(), part.getEtag());
+                        })
+                        .toList();
+                Map<String, Object> result = multipartService.completePresignedUpload(request.getUploadId(), partETags);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "分片上传完成");
+                response.put("data", result);
+
+                return ResponseEntity.ok(response);
+
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 400);
+                errorResponse.put("message", "分片列表不合法: " + e.getMessage());
+
+                return ResponseEntity.badRequest().body(errorResponse);
+            } catch (Exception e) {
+                log.error("完成分片直传失败: uploadId={}, error={}", request.getUploadId(), e.getMessage(), e);
+
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "完成分片上传失败: " + e.getMessage());
+
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
     }
 
     /**
      * 取消分片上传
      */
     @PostMapping("/abort")
-    public ResponseEntity<Map<String, Object>> abortMultipartUpload(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> abortMultipartUpload(
             @RequestParam("uploadId") String uploadId) {
-        
-        try {
-            multipartService.abortMultipartUpload(uploadId);
+        return asyncIoExecutor.respond(() -> {
+            try {
+                multipartService.abortMultipartUpload(uploadId);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("code", 200);
-            response.put("message", "分片上传已取消");
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "分片上传已取消");
             
-            return ResponseEntity.ok(response);
+                return ResponseEntity.ok(response);
             
-        } catch (Exception e) {
-            log.error("取消分片上传失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+            } catch (Exception e) {
+                log.error("取消分片上传失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
             
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("code", 500);
-            errorResponse.put("message", "取消分片上传失败: " + e.getMessage());
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "取消分片上传失败: " + e.getMessage());
             
-            return ResponseEntity.status(500).body(errorResponse);
-        }
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
     }
 
     /**
      * 列出已上传的分片
      */
     @GetMapping("/list-parts")
-    public ResponseEntity<Map<String, Object>> listUploadedParts(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> listUploadedParts(
             @RequestParam("uploadId") String uploadId) {
-        
-        try {
-            List<Map<String, Object>> parts = multipartService.listUploadedParts(uploadId);
+        return asyncIoExecutor.respond(() -> {
+            try {
+                List<Map<String, Object>> parts = multipartService.listUploadedParts(uploadId);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("parts", parts);
-            result.put("totalParts", parts.size());
+                Map<String, Object> result = new HashMap<>();
+                result.put("parts", parts);
+                result.put("totalParts", parts.size());
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("code", 200);
-            response.put("message", "获取分片列表成功");
-            response.put("data", result);
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "获取分片列表成功");
+                response.put("data", result);
             
-            return ResponseEntity.ok(response);
+                return ResponseEntity.ok(response);
             
-        } catch (Exception e) {
-            log.error("获取分片列表失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+            } catch (Exception e) {
+                log.error("获取分片列表失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
             
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("code", 500);
-            errorResponse.put("message", "获取分片列表失败: " + e.getMessage());
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "获取分片列表失败: " + e.getMessage());
             
-            return ResponseEntity.status(500).body(errorResponse);
-        }
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
+    }
+
+    /**
+     * 获取对冲上传建议
+     * 返回上传耗时明显超过其他分片的进行中分片，客户端可对这些分片再发起一次上传，先完成的一次生效
+     */
+    @GetMapping("/hedge-hints")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getHedgeHints(
+            @RequestParam("uploadId") String uploadId) {
+        return asyncIoExecutor.respond(() -> {
+            try {
+                Map<String, Object> hints = multipartService.hedgeHints(uploadId);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "获取对冲上传建议成功");
+                response.put("data", hints);
+
+                return ResponseEntity.ok(response);
+
+            } catch (Exception e) {
+                log.error("获取对冲上传建议失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "获取对冲上传建议失败: " + e.getMessage());
+
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
     }
 
     /**
      * 获取上传会话状态
+     * 提供fileSize和partSize时返回缺失的分片及字节范围，用于断点续传；
+     * MinIO分片列表有缓存，轮询不会每次都访问MinIO，refresh=true时强制刷新
      */
     @GetMapping("/status")
-    public ResponseEntity<Map<String, Object>> getUploadStatus(
-            @RequestParam("uploadId") String uploadId) {
-        
-        try {
-            List<Map<String, Object>> parts = multipartService.listUploadedParts(uploadId);
-            
-            Map<String, Object> status = new HashMap<>();
-            status.put("uploadId", uploadId);
-            status.put("uploadedParts", parts.size());
-            status.put("parts", parts);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("code", 200);
-            response.put("message", "获取上传状态成功");
-            response.put("data", status);
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("获取上传状态失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getUploadStatus(
+            @RequestParam("uploadId") String uploadId,
+            @RequestParam(value = "fileSize", required = false) Long fileSize,
+            @RequestParam(value = "partSize", required = false) Long partSize,
+            @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+        return asyncIoExecutor.respond(() -> {
+            try {
+                Map<String, Object> status;
+                if (fileSize != null && partSize != null) {
+                    status = uploadResumeService.getResumeStatus(uploadId, fileSize, partSize, refresh);
+                } else {
+                    List<Integer> partNumbers = uploadResumeService.getUploadedPartNumbers(uploadId, refresh);
+                    status = new HashMap<>();
+                    status.put("uploadId", uploadId);
+                    status.put("uploadedParts", partNumbers.size());
+                    status.put("partNumbers", partNumbers);
+                }
+            
+                Map<String, Object> response = new HashMap<>();
+                response.put("code", 200);
+                response.put("message", "获取上传状态成功");
+                response.put("data", status);
+            
+                return ResponseEntity.ok(response);
+            
+            } catch (Exception e) {
+                log.error("获取上传状态失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
             
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("code", 500);
-            errorResponse.put("message", "获取上传状态失败: " + e.getMessage());
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 500);
+                errorResponse.put("message", "获取上传状态失败: " + e.getMessage());
             
-            return ResponseEntity.status(500).body(errorResponse);
-        }
+                return ResponseEntity.status(500).body(errorResponse);
+            }
+        });
+    }
+
+    /**
+     * 客户端网段，请求来自受信任的代理时取代理转发的原始地址
+     */
+    private String networkKey(HttpServletRequest request) {
+        return AdaptiveChunkSizeService.resolveNetworkKey(clientAddressResolver.clientAddress(request));
     }
-}
\ No newline at end of file
+}
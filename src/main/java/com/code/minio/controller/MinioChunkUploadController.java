@@ -3,12 +3,15 @@ package com.code.minio.controller;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
 import com.code.minio.config.MinioProperties;
+import com.code.minio.service.impl.MinioChunkUploadService;
+import com.code.minio.util.AsyncIoExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,42 +23,51 @@ import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/minio")
 public class MinioChunkUploadController {
 
     private static final Logger log = LoggerFactory.getLogger(MinioChunkUploadController.class);
+    public static final String SESSION_KEY = "minio:multipart:upload:%s";
+    private static final String PARTS_KEY = "minio:multipart:parts:%s";
+    private static final Duration SESSION_TTL = Duration.ofMinutes(10);
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
     @Autowired
     private AmazonS3 amazonS3;
     @Autowired
     private MinioProperties minioProperties;
+    @Autowired
+    private MinioChunkUploadService minioChunkUploadService;
+    @Autowired
+    private AsyncIoExecutor asyncIoExecutor;
 
     /**
      * 初始化分片上传
      */
     @PostMapping("/init")
-    public String initMultipartUpload(@RequestParam String fileName,
-                                      @RequestParam String contentType) {
-        String newFileName = String.format("%s/%s",
-                LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE), fileName);
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentType(contentType);
-        InitiateMultipartUploadRequest uploadRequest = new InitiateMultipartUploadRequest(
-                minioProperties.getDefaultBucket(), newFileName, metadata
-        );
-        InitiateMultipartUploadResult uploadResult = amazonS3.initiateMultipartUpload(uploadRequest);
-        String uploadId = uploadResult.getUploadId();
-        log.info("初始化分片上传成功，uploadId: {}", uploadId);
-        String redisKey = String.format("minio:multipart:upload:%s", uploadId);
-        Map<String, Object> partInfo = Map.of("bucket", minioProperties.getDefaultBucket(),
-                "originFileName", fileName, "newFileName", newFileName, "uploadId", uploadId);
-        stringRedisTemplate.opsForHash().putAll(redisKey, partInfo);
-        stringRedisTemplate.expire(redisKey, Duration.ofMinutes(10));
-        return uploadId;
+    public CompletableFuture<String> initMultipartUpload(@RequestParam String fileName,
+                                                         @RequestParam String contentType) {
+        return asyncIoExecutor.supply(() -> {
+            String newFileName = String.format("%s/%s",
+                    LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE), fileName);
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            InitiateMultipartUploadRequest uploadRequest = new InitiateMultipartUploadRequest(
+                    minioProperties.getDefaultBucket(), newFileName, metadata
+            );
+            InitiateMultipartUploadResult uploadResult = amazonS3.initiateMultipartUpload(uploadRequest);
+            String uploadId = uploadResult.getUploadId();
+            log.info("初始化分片上传成功，uploadId: {}", uploadId);
+            String redisKey = String.format(SESSION_KEY, uploadId);
+            Map<String, Object> partInfo = Map.of("bucket", minioProperties.getDefaultBucket(),
+                    "originFileName", fileName, "newFileName", newFileName, "uploadId", uploadId);
+            stringRedisTemplate.opsForHash().putAll(redisKey, partInfo);
+            stringRedisTemplate.expire(redisKey, SESSION_TTL);
+            return uploadId;
+        });
     }
 
 
@@ -64,26 +76,32 @@ public class MinioChunkUploadController {
      * 分片上传文件
      */
     @PostMapping("/upload")
-    public void uploadMultipartFile(@RequestParam MultipartFile partFile,
-                                      @RequestParam String uploadId,
-                                      @RequestParam Integer partNumber) throws Exception {
-        Assert.isTrue(1 <= partNumber && partNumber < 10000, "分片号必须在1-10000之间");
-        String redisKey = String.format("minio:multipart:upload:%s", uploadId);
-        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(redisKey);
-        UploadPartRequest uploadPartRequest = new UploadPartRequest()
-                    .withInputStream(partFile.getInputStream())
-                    .withPartSize(partFile.getSize())
-                    .withUploadId(uploadId)
-                    .withPartNumber(partNumber)
-                    .withBucketName((String) entries.get("bucket"))
-                    // 确保所有分片上传到同一个对象
-                    .withKey((String) entries.get("newFileName"));
-        UploadPartResult result = amazonS3.uploadPart(uploadPartRequest);
-        log.info("分片上传成功: uploadId={}, partNumber={}, etag={}",
-                uploadId, partNumber, result.getPartETag().getETag());
-        String redisPartKey = String.format("minio:multipart:%s:%s", uploadId, partNumber);
-        Map<String, Object> partInfo = Map.of("partNumber", partNumber.toString(), "etag", result.getPartETag().getETag());
-        stringRedisTemplate.opsForHash().putAll(redisPartKey, partInfo);
+    public CompletableFuture<Void> uploadMultipartFile(@RequestParam MultipartFile partFile,
+                                                       @RequestParam String uploadId,
+                                                       @RequestParam Integer partNumber) {
+        return asyncIoExecutor.supply(() -> {
+            Assert.isTrue(1 <= partNumber && partNumber < 10000, "分片号必须在1-10000之间");
+            String redisKey = String.format(SESSION_KEY, uploadId);
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(redisKey);
+            Assert.isTrue(!entries.isEmpty(), "上传会话不存在或已过期");
+            UploadPartRequest uploadPartRequest = new UploadPartRequest()
+                        .withInputStream(partFile.getInputStream())
+                        .withPartSize(partFile.getSize())
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withBucketName((String) entries.get("bucket"))
+                        // 确保所有分片上传到同一个对象
+                        .withKey((String) entries.get("newFileName"));
+            UploadPartResult result = amazonS3.uploadPart(uploadPartRequest);
+            log.info("分片上传成功: uploadId={}, partNumber={}, etag={}",
+                    uploadId, partNumber, result.getPartETag().getETag());
+            // 所有分片记录在同一个hash中（partNumber -> etag），与会话共用过期时间
+            String redisPartsKey = String.format(PARTS_KEY, uploadId);
+            stringRedisTemplate.opsForHash().put(redisPartsKey, partNumber.toString(), result.getPartETag().getETag());
+            stringRedisTemplate.expire(redisPartsKey, SESSION_TTL);
+            stringRedisTemplate.expire(redisKey, SESSION_TTL);
+            return null;
+        });
     }
 
 
@@ -91,42 +109,45 @@ public class MinioChunkUploadController {
      * 合并分片
      */
     @PostMapping("/marge")
-    public void margeMultipartUpload(@RequestParam String uploadId) {
-        String redisKey = String.format("minio:multipart:upload:%s", uploadId);
-        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(redisKey);
-        // 获取所有分片信息（排除上传信息本身）
-        String partKeys = String.format("minio:multipart:%s:*", uploadId);
-        Set<String> keys = stringRedisTemplate.keys(partKeys);
-        Assert.isTrue(keys != null && !keys.isEmpty(), "请先上传分片");
-        
-        // 过滤掉上传信息本身，只保留分片信息
-        Set<String> partKeysOnly = keys.stream()
-                .filter(key -> !key.equals(String.format("minio:multipart:upload:%s", uploadId)))
-                .collect(java.util.stream.Collectors.toSet());
-        
-        Assert.isTrue(!partKeysOnly.isEmpty(), "没有找到有效的分片信息");
-        
-        // 构建分片ETag
-        List<Map<Object, Object>> partInfoMap = partKeysOnly.stream()
-                .map(key -> stringRedisTemplate.opsForHash().entries(key))
-                .sorted(Comparator.comparingInt(p -> Integer.parseInt(p.get("partNumber").toString())))
-                .toList();
-        List<PartETag> partETags = partInfoMap.stream().map(partInfo ->
-                new PartETag(
-                        Integer.parseInt(partInfo.get("partNumber").toString()) , partInfo.get("etag").toString()
-                )
-        ).toList();
-        CompleteMultipartUploadRequest completeMultipartUploadRequest = new CompleteMultipartUploadRequest()
-                .withUploadId(uploadId)
-                .withBucketName(entries.get("bucket").toString())
-                .withKey(entries.get("newFileName").toString())
-                .withPartETags(partETags);
-        CompleteMultipartUploadResult result = amazonS3.completeMultipartUpload(completeMultipartUploadRequest);
-        // 清理Redis数据
-        stringRedisTemplate.delete(redisKey);
-        log.info("合并分片成功: uploadId={}, objectKey={}, etag={}", uploadId, result.getKey(), result.getETag());
+    public CompletableFuture<Void> margeMultipartUpload(@RequestParam String uploadId) {
+        return asyncIoExecutor.supply(() -> {
+            String redisKey = String.format(SESSION_KEY, uploadId);
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(redisKey);
+            Assert.isTrue(!entries.isEmpty(), "上传会话不存在或已过期");
+            // 一次HGETALL取回全部分片信息
+            String redisPartsKey = String.format(PARTS_KEY, uploadId);
+            Map<Object, Object> parts = stringRedisTemplate.opsForHash().entries(redisPartsKey);
+            Assert.isTrue(!parts.isEmpty(), "请先上传分片");
+
+            // 构建分片ETag
+            List<PartETag> partETags = parts.entrySet().stream()
+                    .map(part -> new PartETag(Integer.parseInt(part.getKey().toString()), part.getValue().toString()))
+                    .sorted(Comparator.comparingInt(PartETag::getPartNumber))
+                    .toList();
+            CompleteMultipartUploadRequest completeMultipartUploadRequest = new CompleteMultipartUploadRequest()
+                    .withUploadId(uploadId)
+                    .withBucketName(entries.get("bucket").toString())
+                    .withKey(entries.get("newFileName").toString())
+                    .withPartETags(partETags);
+            CompleteMultipartUploadResult result = amazonS3.completeMultipartUpload(completeMultipartUploadRequest);
+            // 清理Redis数据
+            stringRedisTemplate.delete(List.of(redisKey, redisPartsKey));
+            log.info("合并分片成功: uploadId={}, objectKey={}, etag={}", uploadId, result.getKey(), result.getETag());
+            return null;
+        });
     }
 
 
+    /**
+     * 合并已上传的分片对象（composeObject），源对象较多时分层并行合并
+     * @param targetName 合并后的对象名称
+     * @param partNames 按顺序排列的分片对象名称
+     * @return 合并后文件的预签名URL
+     */
+    @PostMapping("/compose")
+    public CompletableFuture<String> composeObject(@RequestParam String targetName,
+                                                   @RequestBody List<String> partNames) {
+        return asyncIoExecutor.supply(() -> minioChunkUploadService.multipartMerge(targetName, partNames));
+    }
 
 }
@@ -1,22 +1,66 @@
 package com.code.minio.controller;
 
+import com.code.minio.config.DownloadProperties;
+import com.code.minio.config.ImageProperties;
 import com.code.minio.config.MinioProperties;
+import com.code.minio.config.PresignProperties;
+import com.code.minio.model.PresignBatchRequest;
+import com.code.minio.service.impl.CompressionService;
+import com.code.minio.service.impl.DedupService;
+import com.code.minio.service.impl.ImageDerivativeService;
 import com.code.minio.service.impl.MinioService;
+import com.code.minio.service.impl.ObjectCacheService;
+import com.code.minio.service.impl.ObjectDownloadService;
+import com.code.minio.service.impl.ObjectListingService;
+import com.code.minio.service.impl.PresignedUrlService;
+import com.code.minio.service.impl.SnowballIngestService;
+import com.code.minio.util.AsyncIoExecutor;
+import com.code.minio.util.BufferPool;
+import com.code.minio.util.CompressionCodec;
+import com.code.minio.util.DigestingInputStream;
 import io.minio.*;
 import io.minio.http.Method;
 import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 @RestController
@@ -29,6 +73,34 @@ public class MinioController {
     MinioProperties minioProperties;
     @Autowired
     MinioClient minioClient;
+    @Autowired
+    private MinioAsyncClient minioAsyncClient;
+    @Autowired
+    private AsyncIoExecutor asyncIoExecutor;
+    @Autowired
+    private ObjectDownloadService objectDownloadService;
+    @Autowired
+    private BufferPool downloadBufferPool;
+    @Autowired
+    private DownloadProperties downloadProperties;
+    @Autowired
+    private PresignedUrlService presignedUrlService;
+    @Autowired
+    private PresignProperties presignProperties;
+    @Autowired
+    private ObjectCacheService objectCacheService;
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+    @Autowired
+    private ImageProperties imageProperties;
+    @Autowired
+    private DedupService dedupService;
+    @Autowired
+    private SnowballIngestService snowballIngestService;
+    @Autowired
+    private ObjectListingService objectListingService;
+    @Autowired
+    private CompressionService compressionService;
     public final String ImageType = "image";
     public final String PdfType = "pdf";
     public final String BigType = "big";
@@ -50,57 +122,531 @@ public class MinioController {
 
     /**
      * 用户头像上传
+     * 经MinioAsyncClient上传，等待MinIO响应期间不占用请求线程和I/O线程
      * @return
      */
     @PostMapping("image")
-    public String uploadImage(MultipartFile file) throws Exception{
+    public CompletableFuture<Map<String, Object>> uploadImage(MultipartFile file) throws IOException {
         String fileName = getObjName(file.getOriginalFilename(), ImageType);
-        try(InputStream inputStream = file.getInputStream()) {
-            minioClient.putObject(PutObjectArgs.builder()
-                    .bucket(minioProperties.getDefaultBucket())
-                    .object(fileName)
-                    // 文件流；文件的总大小；每个分片大小，-1表示默认分片5或者64MB
-                    .stream(inputStream, file.getSize(), -1)
-                    .build());
-        }
-        String imageUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                .bucket(minioProperties.getDefaultBucket())
-                .object(fileName)
-                .method(Method.GET)
-                .expiry(minioProperties.getPresignedUrlExpiry(), TimeUnit.DAYS)
-                .build());
-        return imageUrl;
+        // 原图不超过衍生图的大小上限时读入内存，上传后直接交给衍生图任务，无需再从MinIO读回
+        byte[] data = file.getSize() <= imageProperties.getMaxSourceBytes() ? file.getBytes() : null;
+        InputStream inputStream = data != null ? new ByteArrayInputStream(data) : file.getInputStream();
+        return asyncIoExecutor.compose(() -> minioAsyncClient.putObject(PutObjectArgs.builder()
+                        .bucket(minioProperties.getDefaultBucket())
+                        .object(fileName)
+                        // 文件流；文件的总大小；每个分片大小，-1表示默认分片5或者64MB
+                        .stream(inputStream, file.getSize(), -1)
+                        .build()))
+                .whenComplete((response, e) -> closeQuietly(inputStream))
+                .thenApply(response -> {
+                    // 同名对象被覆盖，丢弃读缓存中的旧版本
+                    objectCacheService.invalidate(fileName);
+                    String imageUrl = presignedUrlService.presign(minioProperties.getDefaultBucket(), fileName,
+                            Method.GET, minioProperties.getPresignedUrlExpiry(), TimeUnit.DAYS);
+
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("url", imageUrl);
+                    result.put("objectName", fileName);
+                    // 衍生图在后台生成，生成完成前访问其URL会返回404
+                    result.put("variants", data != null ? imageDerivativeService.submit(fileName, data) : Map.of());
+                    return result;
+                });
     }
 
 
 
     /**
      * 用户合同上传
+     * 经MinioAsyncClient上传，等待MinIO响应期间不占用请求线程和I/O线程
      * @return
      */
     @PostMapping("pdf")
-    public String uploadPdf(MultipartFile file) throws Exception{
+    public CompletableFuture<Map<String, Object>> uploadPdf(MultipartFile file) throws IOException {
         String fileName = getObjName(file.getOriginalFilename(), PdfType);
-        try(InputStream inputStream = file.getInputStream()) {
-            minioClient.putObject(PutObjectArgs.builder()
+        // 按业务类型配置决定是否边传边压缩
+        CompressionCodec codec = compressionService.codecFor(PdfType, file.getSize());
+        // 上传的同时计算摘要，用MinIO返回的ETag校验，不再回读对象；
+        // 压缩后的大小未知，分片大小按原始大小留出余量，保证分片数不超过上限
+        long partSize = DigestingInputStream.partSizeFor(
+                codec == null ? file.getSize() : file.getSize() + file.getSize() / 100 + 1024);
+        InputStream inputStream = file.getInputStream();
+        DigestingInputStream contentDigest = new DigestingInputStream(inputStream, partSize);
+        DigestingInputStream digestStream;
+        PutObjectArgs.Builder args = PutObjectArgs.builder()
+                .bucket(minioProperties.getDefaultBucket())
+                .object(fileName);
+        if (codec == null) {
+            digestStream = contentDigest;
+            // 文件流；文件的总大小；每个分片的大小，与摘要计算使用的分片大小一致
+            args.stream(digestStream, file.getSize(), partSize);
+        } else {
+            // 原始内容的摘要在压缩前计算，ETag按实际写入的压缩数据计算
+            digestStream = new DigestingInputStream(compressionService.compress(codec, contentDigest), partSize);
+            args.stream(digestStream, -1, partSize)
+                    .userMetadata(compressionService.metadata(codec, file.getSize()));
+        }
+        return asyncIoExecutor.compose(() -> minioAsyncClient.putObject(args.build()))
+                .whenComplete((response, e) -> closeQuietly(inputStream))
+                .thenCompose(response -> {
+                    objectCacheService.invalidate(fileName);
+                    String etag = response.etag() == null ? null : response.etag().replace("\"", "");
+                    if (contentDigest.getTotalBytes() != file.getSize()) {
+                        log.error("文件读取不完整，删除对象: object={}, read={}, size={}",
+                                fileName, contentDigest.getTotalBytes(), file.getSize());
+                        return removeCorrupted(fileName);
+                    }
+                    if (isEncrypted(response)) {
+                        // 服务端加密时ETag不是内容的MD5，改为核对MinIO记录的对象大小与实际写入的字节数
+                        return statSize(fileName).thenCompose(storedSize -> {
+                            if (storedSize != digestStream.getTotalBytes()) {
+                                log.error("加密对象大小校验失败，删除对象: object={}, stored={}, written={}",
+                                        fileName, storedSize, digestStream.getTotalBytes());
+                                return removeCorrupted(fileName);
+                            }
+                            log.debug("加密对象已按大小验证：object={}, size={}", fileName, storedSize);
+                            return CompletableFuture.completedFuture(
+                                    pdfResult(fileName, codec, contentDigest, digestStream, etag));
+                        });
+                    }
+                    String expectedETag = digestStream.expectedETag();
+                    if (!expectedETag.equals(etag)) {
+                        log.error("文件校验失败，删除对象: object={}, etag={}, expected={}", fileName, etag, expectedETag);
+                        return removeCorrupted(fileName);
+                    }
+                    log.debug("文件对象已验证：object={}, etag={}", fileName, etag);
+                    return CompletableFuture.completedFuture(pdfResult(fileName, codec, contentDigest, digestStream, etag));
+                });
+    }
+
+    private Map<String, Object> pdfResult(String fileName, CompressionCodec codec, DigestingInputStream contentDigest,
+                                          DigestingInputStream digestStream, String etag) {
+        Map<String, Object> result = new HashMap<>();
+        if (codec == null) {
+            // 摘要由服务端计算且已与MinIO核对，可直接登记到去重索引
+            dedupService.register(contentDigest.sha256Hex(), fileName, contentDigest.getTotalBytes(), etag);
+            result.put("url", getObjectUrl(fileName));
+        } else {
+            // 预签名URL返回的是压缩后的数据，压缩对象通过代理下载接口解压后返回
+            compressionService.record(contentDigest.getTotalBytes(), digestStream.getTotalBytes());
+            result.put("url", "/minio/objects/" + fileName);
+            result.put("codec", codec.getId());
+            result.put("storedSize", digestStream.getTotalBytes());
+        }
+        result.put("objectName", fileName);
+        result.put("size", contentDigest.getTotalBytes());
+        result.put("etag", etag);
+        result.put("md5", contentDigest.md5Hex());
+        result.put("sha256", contentDigest.sha256Hex());
+        return result;
+    }
+
+    /**
+     * 写入响应带有服务端加密头（SSE-S3、SSE-KMS或SSE-C，包括桶的默认加密）时，ETag不是内容的MD5
+     */
+    private static boolean isEncrypted(ObjectWriteResponse response) {
+        Headers headers = response.headers();
+        return headers != null && (headers.get("x-amz-server-side-encryption") != null
+                || headers.get("x-amz-server-side-encryption-customer-algorithm") != null);
+    }
+
+    /**
+     * MinIO记录的对象大小；查询失败时请求以失败结束，但不删除对象
+     */
+    private CompletableFuture<Long> statSize(String fileName) {
+        try {
+            return minioAsyncClient.statObject(StatObjectArgs.builder()
+                    .bucket(minioProperties.getDefaultBucket())
+                    .object(fileName)
+                    .build())
+                    .thenApply(StatObjectResponse::size);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 删除校验失败的对象，删除完成后以校验失败结束请求
+     */
+    private CompletableFuture<Map<String, Object>> removeCorrupted(String fileName) {
+        CompletableFuture<Void> removal;
+        try {
+            removal = minioAsyncClient.removeObject(RemoveObjectArgs.builder()
                     .bucket(minioProperties.getDefaultBucket())
                     .object(fileName)
-                    // 文件流；文件的总大小；每个分片的大小，-1表示默认分片5或者64MB
-                    .stream(inputStream, file.getSize(), -1)
                     .build());
+        } catch (Exception e) {
+            removal = CompletableFuture.failedFuture(e);
         }
-        // 获取文件对象进行验证
-        GetObjectResponse object = minioClient.getObject(GetObjectArgs.builder()
-                .bucket(minioProperties.getDefaultBucket())
-                .object(fileName)
-                .build());
-        log.debug("文件对象已验证：{}");
-        return getObjectUrl(fileName);
+        return removal.handle((v, e) -> {
+            if (e != null) {
+                log.error("删除校验失败的对象失败: object={}, error={}", fileName, e.getMessage());
+            }
+            throw new RuntimeException("文件校验失败: " + fileName);
+        });
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.debug("关闭上传流失败: {}", e.getMessage());
+        }
+    }
+
+
+
+
+
+
+    /**
+     * 小文件批量导入：multipart上传多个文件，攒批后以snowball方式上传
+     * @param bizType 对象名前缀，对象名为 bizType/日期/原文件名
+     * @return 每个文件的导入结果
+     */
+    @PostMapping("batch")
+    public CompletableFuture<Map<String, Object>> uploadBatch(@RequestParam("files") List<MultipartFile> files,
+                                                              @RequestParam(value = "bizType", defaultValue = "import") String bizType) {
+        return asyncIoExecutor.supply(() -> snowballIngestService.ingestFiles(files, bizType));
+    }
+
+    /**
+     * 小文件批量导入：请求体为tar流，tar内的相对路径保留在 bizType/日期/ 之下
+     * tar格式错误时返回400，响应体中仍包含错误之前已导入文件的结果
+     */
+    @PostMapping(value = "batch/tar", consumes = {"application/x-tar", "application/octet-stream"})
+    public DeferredResult<ResponseEntity<Map<String, Object>>> uploadTar(HttpServletRequest request,
+                                                                         @RequestParam(value = "bizType", defaultValue = "import") String bizType) {
+        return asyncIoExecutor.stream(request, () -> {
+            try (InputStream inputStream = request.getInputStream()) {
+                Map<String, Object> summary = snowballIngestService.ingestTar(inputStream, bizType);
+                return summary.containsKey("error") ? ResponseEntity.badRequest().body(summary) : ResponseEntity.ok(summary);
+            }
+        });
+    }
+
+    /**
+     * 批量获取预签名URL，列表页一次请求签完所有缩略图；已签过的URL直接从缓存返回
+     * 只签发minio.presign.allowed-methods中的方法（默认GET/HEAD），不对外签发写入或删除URL
+     */
+    @PostMapping("presign/batch")
+    public ResponseEntity<Map<String, Object>> presignBatch(@RequestBody PresignBatchRequest request) {
+        try {
+            List<String> objects = request.getObjects();
+            if (objects == null || objects.isEmpty() || objects.size() > presignProperties.getMaxBatch()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 400);
+                errorResponse.put("message", "对象个数必须在1-" + presignProperties.getMaxBatch() + "之间");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            int expirySeconds = request.getExpirySeconds() != null
+                    ? request.getExpirySeconds()
+                    : (int) TimeUnit.DAYS.toSeconds(minioProperties.getPresignedUrlExpiry());
+            if (expirySeconds < 1 || expirySeconds > PresignedUrlService.MAX_EXPIRY_SECONDS) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 400);
+                errorResponse.put("message", "有效期必须在1-" + PresignedUrlService.MAX_EXPIRY_SECONDS + "秒之间");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            String methodName = request.getMethod() == null ? null : request.getMethod().trim().toUpperCase();
+            if (methodName == null || !presignProperties.getAllowedMethods().contains(methodName)) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("code", 400);
+                errorResponse.put("message", "HTTP方法必须是" + presignProperties.getAllowedMethods() + "之一");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            Method method = Method.valueOf(methodName);
+            Map<String, String> urls = presignedUrlService.presignBatch(
+                    minioProperties.getDefaultBucket(), objects, method, expirySeconds);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("urls", urls);
+            result.put("expirySeconds", expirySeconds);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("code", 200);
+            response.put("message", "生成预签名URL成功");
+            response.put("data", result);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("批量生成预签名URL失败: {}", e.getMessage(), e);
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("code", 500);
+            errorResponse.put("message", "批量生成预签名URL失败: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * 列出对象：GET /minio/list?bizType=image&from=20240101&to=20240131
+     * 以NDJSON流式返回，每行一个对象，最后一行为count、truncated和nextContinuationToken；
+     * 不传日期时列出bizType下的全部对象，传日期时各日期前缀并发预取、按键顺序输出；
+     * 列表线程不足时返回503和Retry-After
+     */
+    @GetMapping("list")
+    public ResponseEntity<StreamingResponseBody> listObjects(HttpServletRequest request,
+                                                             @RequestParam("bizType") String bizType,
+                                                             @RequestParam(value = "from", required = false) String from,
+                                                             @RequestParam(value = "to", required = false) String to,
+                                                             @RequestParam(value = "limit", required = false) Integer limit,
+                                                             @RequestParam(value = "continuationToken", required = false) String continuationToken) {
+        List<String> prefixes;
+        String startAfter;
+        try {
+            prefixes = objectListingService.prefixes(bizType,
+                    from == null ? null : LocalDate.parse(from, DateTimeFormatter.BASIC_ISO_DATE),
+                    to == null ? null : LocalDate.parse(to, DateTimeFormatter.BASIC_ISO_DATE));
+            startAfter = ObjectListingService.decodeToken(continuationToken);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageLimit = objectListingService.limit(limit);
+        ObjectListingService.Reservation reservation = objectListingService.reserve(prefixes);
+        if (reservation == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        // 响应体没有执行（异步线程池拒绝、请求超时）时，在异步处理结束后释放
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ObjectListingService.Reservation.class.getName(),
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        reservation.close();
+                    }
+                });
+        StreamingResponseBody body = out -> {
+            try (reservation) {
+                objectListingService.write(prefixes, startAfter, pageLimit, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * 代理下载对象：GET /minio/objects/{对象名}
+     * 支持单个Range请求（206）、If-None-Match（304）和If-Range；
+     * 热点小对象从两级读缓存返回，其余对象经池化缓冲区边读边写，不在内存中缓存整个对象。
+     * 元数据查询和缓存验证在I/O线程池中执行，响应体由流式线程池写出，未命中时对象在后台读入缓存，不阻塞本次响应
+     */
+    @GetMapping("objects/**")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> downloadObject(HttpServletRequest request,
+                                                                                   @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                                   @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        String objectName = extractObjectName(request);
+        if (objectName.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        // HEAD请求只返回响应头，不读取对象内容
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+        return asyncIoExecutor.respond(
+                () -> serveObject(objectName, head, rangeHeader, ifNoneMatch, ifRange),
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build());
+    }
+
+    private ResponseEntity<StreamingResponseBody> serveObject(String objectName, boolean head, String rangeHeader,
+                                                              String ifNoneMatch, String ifRange) throws Exception {
+        // 先查热点对象缓存，未命中时直接流式转发，并按访问情况在后台读入缓存
+        ObjectCacheService.CachedObject cached = objectCacheService.get(objectName);
+        String objectEtag;
+        long size;
+        ZonedDateTime lastModified;
+        String contentType;
+        if (cached != null) {
+            objectEtag = cached.getEtag();
+            size = cached.getSize();
+            lastModified = cached.getLastModified();
+            contentType = cached.getContentType();
+        } else {
+            StatObjectResponse stat = objectDownloadService.stat(objectName);
+            if (stat == null) {
+                return ResponseEntity.notFound().build();
+            }
+            CompressionCodec codec = CompressionCodec.of(stat);
+            if (codec != null) {
+                return downloadCompressed(objectName, head, stat, codec, ifNoneMatch);
+            }
+            if (!head) {
+                objectCacheService.admitAsync(objectName, stat);
+            }
+            objectEtag = stat.etag();
+            size = stat.size();
+            lastModified = stat.lastModified();
+            contentType = stat.contentType();
+        }
+        String etag = "\"" + objectEtag + "\"";
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        // 只支持单个范围；多范围请求按RFC 7233可以退化为返回完整内容
+        long offset = 0;
+        long length = size;
+        boolean partial = false;
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    offset = range.getRangeStart(size);
+                    length = range.getRangeEnd(size) - offset + 1;
+                    partial = true;
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                            .build();
+                }
+            }
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentLength(length)
+                .lastModified(lastModified);
+        if (partial) {
+            builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + (offset + length - 1) + "/" + size);
+        }
+        if (contentType != null) {
+            builder.contentType(MediaType.parseMediaType(contentType));
+        }
+        if (head) {
+            return builder.build();
+        }
+
+        long start = offset;
+        long count = length;
+        if (cached != null) {
+            ObjectCacheService.CachedObject object = cached;
+            return builder.body(outputStream -> object.writeTo(outputStream, start, count));
+        }
+        if (buffersExhausted(objectName)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return builder.body(pooledBody(objectName, (buffer, outputStream) ->
+                objectDownloadService.copyRange(objectName, objectEtag, start, count, buffer, outputStream)));
     }
 
+    /**
+     * 下载压缩存储的对象：边读边解压，返回原始内容
+     * 压缩数据的字节位置与原始内容不对应，不支持Range，按RFC 7233忽略Range返回完整内容；不进入读缓存
+     */
+    private ResponseEntity<StreamingResponseBody> downloadCompressed(String objectName, boolean head,
+                                                                     StatObjectResponse stat, CompressionCodec codec,
+                                                                     String ifNoneMatch) {
+        String etag = "\"" + stat.etag() + "\"";
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "none")
+                .lastModified(stat.lastModified());
+        long originalSize = CompressionCodec.originalSize(stat);
+        if (originalSize >= 0) {
+            builder.contentLength(originalSize);
+        }
+        if (stat.contentType() != null) {
+            builder.contentType(MediaType.parseMediaType(stat.contentType()));
+        }
+        if (head) {
+            return builder.build();
+        }
+        if (buffersExhausted(objectName)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return builder.body(pooledBody(objectName, (buffer, outputStream) ->
+                objectDownloadService.copyDecompressed(objectName, stat.etag(), codec, buffer, outputStream)));
+    }
 
+    /**
+     * 下载缓冲区已全部借出时在响应开始前返回503；该检查不预留缓冲区，响应体执行时再借出
+     */
+    private boolean buffersExhausted(String objectName) {
+        if (downloadBufferPool.getInUse() < downloadBufferPool.getCapacity()) {
+            return false;
+        }
+        log.warn("下载缓冲区已耗尽: object={}, inUse={}", objectName, downloadBufferPool.getInUse());
+        return true;
+    }
 
+    /**
+     * 使用池化的下载缓冲区写响应体
+     * 缓冲区在响应体开始执行时借出、结束时归还；响应体未能执行时（线程池拒绝、异步请求超时或出错）不占用缓冲区
+     */
+    private StreamingResponseBody pooledBody(String objectName, PooledWriter writer) {
+        return outputStream -> {
+            ByteBuffer buffer;
+            try {
+                buffer = downloadBufferPool.acquire(
+                        downloadProperties.getBufferAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待下载缓冲区时被中断");
+            }
+            if (buffer == null) {
+                log.warn("下载缓冲区已耗尽: object={}, inUse={}", objectName, downloadBufferPool.getInUse());
+                throw new IOException("下载缓冲区已耗尽: " + objectName);
+            }
+            try {
+                writer.write(buffer, outputStream);
+            } catch (IOException e) {
+                // 客户端断开（拖动进度条、取消下载）属于正常情况
+                log.debug("下载中断: object={}, error={}", objectName, e.getMessage());
+                throw e;
+            } catch (Exception e) {
+                log.error("下载失败: object={}, error={}", objectName, e.getMessage(), e);
+                throw new IOException(e);
+            } finally {
+                downloadBufferPool.release(buffer);
+            }
+        };
+    }
 
+    @FunctionalInterface
+    private interface PooledWriter {
+        void write(ByteBuffer buffer, OutputStream outputStream) throws Exception;
+    }
+
+    /**
+     * 从请求路径中取出/objects/之后的对象名
+     */
+    private String extractObjectName(HttpServletRequest request) {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return new AntPathMatcher().extractPathWithinPattern(pattern, path);
+    }
+
+    /**
+     * If-None-Match可以是*或逗号分隔的ETag列表，弱比较忽略W/前缀
+     */
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
 
     public String getObjName(String fileName, String bizType) {
@@ -109,13 +655,9 @@ public class MinioController {
     }
 
 
-    private String getObjectUrl(String fileName) throws Exception {
-        return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                .bucket(minioProperties.getDefaultBucket())
-                .object(fileName)
-                .method(Method.GET)
-                .expiry(minioProperties.getPresignedUrlExpiry(), TimeUnit.DAYS)
-                .build());
+    private String getObjectUrl(String fileName) {
+        return presignedUrlService.presign(minioProperties.getDefaultBucket(), fileName,
+                Method.GET, minioProperties.getPresignedUrlExpiry(), TimeUnit.DAYS);
     }
 
 
@@ -0,0 +1,225 @@
+package com.code.minio.filter;
+
+import com.code.minio.config.AdmissionProperties;
+import com.code.minio.service.impl.AdmissionControlService;
+import com.code.minio.util.ClientAddressResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 上传接口准入控制过滤器
+ * 令牌桶超限时返回429，并发达到自适应上限时返回503，都带Retry-After，不在服务端排队。
+ * 长度未知的请求体先按预估字节数计费，读取超过已计费字节数时继续追加计费，字节令牌不足时中止读取。
+ * 异步请求在过滤器返回时尚未结束，并发名额在异步请求完成、超时或出错时释放
+ */
+@Component
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private AdmissionProperties admissionProperties;
+
+    @Autowired
+    private AdmissionControlService admissionControlService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClientAddressResolver clientAddressResolver;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!admissionProperties.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return admissionProperties.getPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String tenant = tenant(request);
+        long contentLength = request.getContentLengthLong();
+        long charged = contentLength >= 0 ? contentLength : admissionProperties.getUnknownLengthBytes();
+        long waitMillis = admissionControlService.tryAcquire(tenant, charged);
+        if (waitMillis > 0) {
+            log.debug("上传请求超过限流: tenant={}, path={}, wait={}ms", tenant, request.getRequestURI(), waitMillis);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "请求过于频繁，请稍后重试", waitMillis);
+            return;
+        }
+        if (!admissionControlService.tryAcquireConcurrency()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "服务繁忙，请稍后重试",
+                    admissionProperties.getConcurrency().getRetryAfter().toMillis());
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(contentLength >= 0 ? request : new MeteredRequest(request, tenant, charged), response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release(released, response.getStatus() >= 500);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release(released, true);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release(released, true);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        event.getAsyncContext().addListener(this);
+                    }
+                });
+            } else {
+                release(released, failed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private void release(AtomicBoolean released, boolean dropped) {
+        if (released.compareAndSet(false, true)) {
+            admissionControlService.releaseConcurrency(dropped);
+        }
+    }
+
+    /**
+     * 租户：已认证请求取用户名；受信任代理转发的请求取代理认证后填写的租户请求头；
+     * 其余请求按客户端地址区分，客户端自行填写的租户请求头不起作用
+     */
+    private String tenant(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null && StringUtils.hasText(principal.getName())) {
+            return principal.getName();
+        }
+        if (clientAddressResolver.fromTrustedProxy(request)) {
+            String tenant = request.getHeader(admissionProperties.getTenantHeader());
+            if (StringUtils.hasText(tenant)) {
+                return tenant.trim();
+            }
+        }
+        return clientAddressResolver.clientAddress(request);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message, long waitMillis)
+            throws IOException {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("code", status.value());
+        errorResponse.put("message", message);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    /**
+     * 长度未知的请求：请求体读取超过已计费的字节数时，按unknownLengthBytes追加从字节令牌桶计费
+     */
+    private class MeteredRequest extends HttpServletRequestWrapper {
+
+        private final String tenant;
+        private long charged;
+        private long consumed;
+        private ServletInputStream inputStream;
+
+        MeteredRequest(HttpServletRequest request, String tenant, long charged) {
+            super(request);
+            this.tenant = tenant;
+            this.charged = charged;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                ServletInputStream delegate = super.getInputStream();
+                inputStream = new ServletInputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        int b = delegate.read();
+                        if (b >= 0) {
+                            consume(1);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = delegate.read(b, off, len);
+                        if (n > 0) {
+                            consume(n);
+                        }
+                        return n;
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return delegate.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        delegate.setReadListener(readListener);
+                    }
+                };
+            }
+            return inputStream;
+        }
+
+        private void consume(long n) throws IOException {
+            consumed += n;
+            while (consumed > charged) {
+                long chunk = admissionProperties.getUnknownLengthBytes();
+                long waitMillis = admissionControlService.tryAcquireBytes(tenant, chunk);
+                if (waitMillis > 0) {
+                    log.debug("上传字节数超过限流，中止读取: tenant={}, consumed={}, wait={}ms", tenant, consumed, waitMillis);
+                    throw new IOException("上传速率超过限制，请" + Math.max(1, (waitMillis + 999) / 1000) + "秒后重试");
+                }
+                charged += chunk;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.code.minio.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 预签名直传完成请求：客户端上报的分片号与ETag
+ */
+@Data
+public class CompletePartsRequest {
+
+    private String uploadId;
+
+    private List<PartInfo> parts;
+
+    @Data
+    public static class PartInfo {
+        private Integer partNumber;
+        private String etag;
+    }
+}
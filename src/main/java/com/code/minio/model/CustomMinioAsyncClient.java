@@ -0,0 +1,43 @@
+package com.code.minio.model;
+
+import com.google.common.collect.Multimap;
+import io.minio.*;
+import io.minio.messages.Part;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 暴露MinioAsyncClient中受保护的分片上传接口，用于自行编排分片流水线
+ */
+@Component
+public class CustomMinioAsyncClient extends MinioAsyncClient {
+
+    public CustomMinioAsyncClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public CompletableFuture<CreateMultipartUploadResponse> initMultiPart(String bucket, String object,
+                                                                          Multimap<String, String> headers) throws Exception {
+        return this.createMultipartUploadAsync(bucket, null, object, headers, null);
+    }
+
+    /**
+     * 上传一个分片
+     * @param data 分片数据，只发送前length个字节
+     */
+    public CompletableFuture<UploadPartResponse> uploadPart(String bucket, String object, String uploadId,
+                                                            int partNumber, byte[] data, int length) throws Exception {
+        return this.uploadPartAsync(bucket, null, object, data, length, uploadId, partNumber, null, null);
+    }
+
+    public CompletableFuture<ObjectWriteResponse> mergeMultipartUpload(String bucket, String object, String uploadId,
+                                                                       Part[] parts) throws Exception {
+        return this.completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null);
+    }
+
+    public CompletableFuture<AbortMultipartUploadResponse> abortMultipart(String bucket, String object,
+                                                                          String uploadId) throws Exception {
+        return this.abortMultipartUploadAsync(bucket, null, object, uploadId, null, null);
+    }
+}
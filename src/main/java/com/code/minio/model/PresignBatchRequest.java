@@ -0,0 +1,28 @@
+package com.code.minio.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量获取预签名URL的请求
+ */
+@Data
+public class PresignBatchRequest {
+
+    /**
+     * 对象名称列表
+     */
+    private List<String> objects;
+
+    /**
+     * HTTP方法，默认GET；只允许minio.presign.allowed-methods中的方法
+     */
+    private String method = "GET";
+
+    /**
+     * URL有效期（秒），为空时使用默认有效期
+     */
+    private Integer expirySeconds;
+
+}
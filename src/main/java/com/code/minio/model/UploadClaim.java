@@ -0,0 +1,19 @@
+package com.code.minio.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 抢占合并时一次取回的会话与全部已记录分片
+ */
+@Data
+@AllArgsConstructor
+public class UploadClaim {
+
+    private UploadSessionRecord session;
+
+    private List<UploadPartRecord> parts;
+
+}
@@ -0,0 +1,31 @@
+package com.code.minio.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 已上传的分片，保存在 upload_parts:<uploadId> hash中，字段为分片号，值由UploadRecordCodec编码
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadPartRecord {
+
+    private int partNumber;
+
+    /**
+     * 分片ETag，不带引号
+     */
+    private String etag;
+
+    private long partSize;
+
+    private long uploadTime;
+
+    /**
+     * 本次上传从开始到完成的耗时（毫秒），旧记录为0
+     */
+    private long durationMillis;
+
+}
@@ -0,0 +1,56 @@
+package com.code.minio.model;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分片上传会话
+ * 在Redis中按字段保存为hash（upload_session:<uploadId>），Lua脚本另外维护state字段，不在此记录中
+ */
+@Data
+public class UploadSessionRecord {
+
+    private String objectKey;
+
+    private String fileName;
+
+    private String contentType;
+
+    /**
+     * 客户端声明的内容SHA-256，未声明时为null
+     */
+    private String sha256;
+
+    private long createTime;
+
+    public Map<String, String> toHash() {
+        Map<String, String> hash = new HashMap<>();
+        hash.put("objectKey", objectKey);
+        hash.put("fileName", fileName);
+        if (contentType != null) {
+            hash.put("contentType", contentType);
+        }
+        if (sha256 != null) {
+            hash.put("sha256", sha256);
+        }
+        hash.put("createTime", String.valueOf(createTime));
+        return hash;
+    }
+
+    public static UploadSessionRecord fromHash(Map<?, ?> hash) {
+        UploadSessionRecord record = new UploadSessionRecord();
+        record.setObjectKey(string(hash.get("objectKey")));
+        record.setFileName(string(hash.get("fileName")));
+        record.setContentType(string(hash.get("contentType")));
+        record.setSha256(string(hash.get("sha256")));
+        String createTime = string(hash.get("createTime"));
+        record.setCreateTime(createTime == null ? 0 : Long.parseLong(createTime));
+        return record;
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
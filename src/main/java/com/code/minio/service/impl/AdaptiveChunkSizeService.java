@@ -0,0 +1,295 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.UploadProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应分片大小
+ * 按客户端网段记录每个分片的上传耗时和吞吐量，维护滚动的网络模型（各并发度下的单流吞吐量与总吞吐量），
+ * 据此推荐分片大小和并发数，使单个分片的耗时落在目标区间内，同时满足S3的5MB-5GB、最多10000个分片的限制
+ */
+@Service
+@Slf4j
+public class AdaptiveChunkSizeService {
+
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    public static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    public static final int MAX_PARTS = 10000;
+
+    private static final long MB = 1024 * 1024;
+    /** EWMA平滑系数 */
+    private static final double ALPHA = 0.2;
+    /** 可用于推荐的最少样本数 */
+    private static final int MIN_SAMPLES = 3;
+    /** 并发度分桶：1, 2, 4, 8, 16, 32 */
+    private static final int CONCURRENCY_BUCKETS = 6;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Autowired
+    private MinioChunkUploadService minioChunkUploadService;
+
+    private Map<String, NetworkModel> models;
+
+    public AdaptiveChunkSizeService() {
+    }
+
+    /**
+     * 不经过Spring容器直接构造，用于测试和基准测试
+     */
+    AdaptiveChunkSizeService(UploadProperties uploadProperties, MinioChunkUploadService minioChunkUploadService) {
+        this.uploadProperties = uploadProperties;
+        this.minioChunkUploadService = minioChunkUploadService;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        int maxNetworks = uploadProperties.getAdaptive().getMaxNetworks();
+        // 按访问顺序淘汰最久未使用的网段
+        models = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NetworkModel> eldest) {
+                return size() > maxNetworks;
+            }
+        });
+    }
+
+    private NetworkModel model(String networkKey) {
+        return models.computeIfAbsent(networkKey, k -> new NetworkModel());
+    }
+
+    /**
+     * 开始计时一个分片上传
+     */
+    public PartTimer start(String networkKey) {
+        NetworkModel model = model(networkKey);
+        int concurrency = model.inFlight.incrementAndGet();
+        return new PartTimer(networkKey, model, System.nanoTime(), concurrency);
+    }
+
+    /**
+     * 分片上传结束，记录样本（失败的分片只释放并发计数）
+     */
+    public void finish(PartTimer timer, long bytes, boolean success) {
+        timer.model.inFlight.decrementAndGet();
+        if (success && bytes > 0) {
+            record(timer.networkKey, bytes, System.nanoTime() - timer.startNanos, timer.concurrency);
+        }
+    }
+
+    /**
+     * 记录一个分片样本
+     * @param elapsedNanos 分片耗时
+     * @param concurrency 分片开始时该网段在途的分片数
+     */
+    void record(String networkKey, long bytes, long elapsedNanos, int concurrency) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        model(networkKey).update(bytes, seconds, Math.max(1, concurrency));
+    }
+
+    /**
+     * 推荐分片大小和并发数
+     * @param networkKey 客户端网段
+     * @param fileSize 文件大小（字节）
+     */
+    public Map<String, Object> recommend(String networkKey, long fileSize) {
+        if (fileSize <= 0) {
+            throw new IllegalArgumentException("文件大小必须大于0");
+        }
+        UploadProperties.Adaptive config = uploadProperties.getAdaptive();
+        NetworkModel model = networkKey == null ? null : models.get(networkKey);
+        NetworkModel.Snapshot snapshot = model == null ? null : model.snapshot();
+
+        long partSize;
+        int parallelism;
+        double throughput = 0;
+        String source;
+        if (snapshot == null || snapshot.samples() < MIN_SAMPLES) {
+            // 没有足够的测量数据，退回静态分档
+            partSize = Math.max(MIN_PART_SIZE, minioChunkUploadService.calculateOptimalChunkSize(fileSize));
+            parallelism = config.getDefaultParallelism();
+            source = "static";
+        } else {
+            // 分片耗时 ≈ 分片大小 / 单流吞吐量，让耗时接近目标值
+            double target = config.getTargetPartLatency().toMillis() / 1000.0;
+            parallelism = snapshot.bestParallelism(config.getDefaultParallelism(), config.getMaxParallelism());
+            throughput = snapshot.streamThroughput(parallelism);
+            partSize = (long) (throughput * target);
+            // 小文件在目标耗时内即可传完时，至少切成parallelism个分片，让每个并发通道都有数据
+            partSize = Math.min(partSize, ceilDiv(fileSize, parallelism));
+            source = "adaptive";
+        }
+
+        partSize = clampPartSize(partSize, fileSize);
+        int partCount = (int) Math.max(1, ceilDiv(fileSize, partSize));
+        parallelism = Math.max(1, Math.min(parallelism, partCount));
+
+        Map<String, Object> recommendation = new HashMap<>();
+        recommendation.put("partSize", partSize);
+        recommendation.put("partCount", partCount);
+        recommendation.put("parallelism", parallelism);
+        recommendation.put("source", source);
+        if (snapshot != null) {
+            recommendation.put("samples", snapshot.samples());
+            recommendation.put("averagePartMillis", (long) (snapshot.latency() * 1000));
+        }
+        if (throughput > 0) {
+            recommendation.put("streamThroughput", (long) throughput);
+            recommendation.put("expectedPartMillis", (long) (partSize / throughput * 1000));
+        }
+        return recommendation;
+    }
+
+    /**
+     * 按S3限制修正分片大小：5MB-5GB，分片数不超过10000，按MB取整；单个分片即可容纳时直接返回文件大小
+     */
+    static long clampPartSize(long partSize, long fileSize) {
+        long size = Math.max(MIN_PART_SIZE, Math.min(MAX_PART_SIZE, partSize));
+        size = Math.max(size, ceilDiv(fileSize, MAX_PARTS));
+        size = Math.min(MAX_PART_SIZE, ceilDiv(size, MB) * MB);
+        return fileSize <= size ? fileSize : size;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+
+    /**
+     * 由客户端地址得到网段标识：IPv4取/24，IPv6取前64位
+     */
+    public static String resolveNetworkKey(String address) {
+        if (address == null || address.isBlank()) {
+            return "unknown";
+        }
+        String ip = address.split(",")[0].trim();
+        if (ip.contains(":")) {
+            String[] groups = ip.split(":");
+            StringBuilder prefix = new StringBuilder();
+            for (int i = 0; i < Math.min(4, groups.length); i++) {
+                prefix.append(groups[i]).append(':');
+            }
+            return prefix.append(":/64").toString();
+        }
+        int lastDot = ip.lastIndexOf('.');
+        return lastDot < 0 ? ip : ip.substring(0, lastDot) + ".0/24";
+    }
+
+    /**
+     * 一次分片上传的计时句柄
+     */
+    public static final class PartTimer {
+        private final String networkKey;
+        private final NetworkModel model;
+        private final long startNanos;
+        private final int concurrency;
+
+        private PartTimer(String networkKey, NetworkModel model, long startNanos, int concurrency) {
+            this.networkKey = networkKey;
+            this.model = model;
+            this.startNanos = startNanos;
+            this.concurrency = concurrency;
+        }
+    }
+
+    /**
+     * 单个网段的滚动模型
+     * 按并发度分桶记录单流有效吞吐量（分片大小 / 分片耗时，已包含建连、签名等固定开销），
+     * 总吞吐量 = 单流吞吐量 * 并发数
+     */
+    static final class NetworkModel {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private int samples;
+        /** 分片耗时（秒） */
+        private double latency;
+        /** 各并发度分桶下的单流吞吐量（字节/秒） */
+        private final double[] streamThroughput = new double[CONCURRENCY_BUCKETS];
+        /** 各并发度分桶下的总吞吐量（字节/秒） */
+        private final double[] aggregate = new double[CONCURRENCY_BUCKETS];
+        private final int[] bucketSamples = new int[CONCURRENCY_BUCKETS];
+
+        synchronized void update(long bytes, double seconds, int concurrency) {
+            latency = samples == 0 ? seconds : ewma(latency, seconds);
+            samples++;
+
+            int bucket = bucketOf(concurrency);
+            double throughput = bytes / seconds;
+            if (bucketSamples[bucket] == 0) {
+                streamThroughput[bucket] = throughput;
+                aggregate[bucket] = throughput * concurrency;
+            } else {
+                streamThroughput[bucket] = ewma(streamThroughput[bucket], throughput);
+                aggregate[bucket] = ewma(aggregate[bucket], throughput * concurrency);
+            }
+            bucketSamples[bucket]++;
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(samples, latency, streamThroughput.clone(), aggregate.clone(), bucketSamples.clone());
+        }
+
+        private static double ewma(double current, double sample) {
+            return current + ALPHA * (sample - current);
+        }
+
+        private static int bucketOf(int concurrency) {
+            int bucket = 31 - Integer.numberOfLeadingZeros(concurrency);
+            return Math.min(bucket, CONCURRENCY_BUCKETS - 1);
+        }
+
+        record Snapshot(int samples, double latency, double[] streamThroughput,
+                        double[] aggregate, int[] bucketSamples) {
+
+            /**
+             * 取总吞吐量达到最优值90%的最小并发度；最优值出现在已观测的最高并发度时，向上试探一档
+             */
+            int bestParallelism(int defaultParallelism, int maxParallelism) {
+                double best = 0;
+                int highestObserved = -1;
+                for (int i = 0; i < CONCURRENCY_BUCKETS; i++) {
+                    if (bucketSamples[i] >= MIN_SAMPLES) {
+                        best = Math.max(best, aggregate[i]);
+                        highestObserved = i;
+                    }
+                }
+                if (highestObserved < 0) {
+                    return defaultParallelism;
+                }
+                for (int i = 0; i < CONCURRENCY_BUCKETS; i++) {
+                    if (bucketSamples[i] >= MIN_SAMPLES && aggregate[i] >= best * 0.9) {
+                        int bucket = i == highestObserved ? Math.min(i + 1, CONCURRENCY_BUCKETS - 1) : i;
+                        return Math.min(1 << bucket, maxParallelism);
+                    }
+                }
+                return defaultParallelism;
+            }
+
+            /**
+             * 指定并发度下的单流吞吐量；该档位没有样本时按已观测的最优总吞吐量均分估算
+             */
+            double streamThroughput(int parallelism) {
+                int bucket = bucketOf(parallelism);
+                if (bucketSamples[bucket] >= MIN_SAMPLES) {
+                    return streamThroughput[bucket];
+                }
+                double best = 0;
+                for (int i = 0; i < CONCURRENCY_BUCKETS; i++) {
+                    if (bucketSamples[i] > 0) {
+                        best = Math.max(best, aggregate[i]);
+                    }
+                }
+                return best / parallelism;
+            }
+        }
+    }
+}
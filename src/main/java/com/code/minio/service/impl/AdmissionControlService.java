@@ -0,0 +1,228 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.AdmissionProperties;
+import com.code.minio.util.AimdConcurrencyLimiter;
+import com.code.minio.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 上传接口准入控制
+ * 请求数和字节数各有全局与按租户的令牌桶，由Redis中的Lua脚本原子扣减，在整个集群范围内生效；
+ * 开启本地快速判断时，先用本节点的令牌桶过滤掉单节点就已超限的请求，减少对Redis的访问。
+ * Redis不可用时只按本地令牌桶判断，不因限流组件故障拒绝上传
+ */
+@Service
+@Slf4j
+public class AdmissionControlService {
+
+    public static final String KEY_PREFIX = "admission:";
+
+    private static final DefaultRedisScript<Long> TAKE_SCRIPT = script("scripts/admission_take.lua");
+
+    private static final long REDIS_WARN_INTERVAL_MILLIS = 60_000;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private AdmissionProperties admissionProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, TokenBucket[]> localBuckets;
+
+    private AimdConcurrencyLimiter concurrencyLimiter;
+
+    private Counter localRejected;
+
+    private Counter clusterRejected;
+
+    private Counter concurrencyRejected;
+
+    private Counter redisErrors;
+
+    private volatile long lastRedisWarn;
+
+    @PostConstruct
+    public void init() {
+        localBuckets = Caffeine.newBuilder()
+                .maximumSize(admissionProperties.getLocalBucketsSize())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        concurrencyLimiter = new AimdConcurrencyLimiter(admissionProperties.getConcurrency());
+        Gauge.builder("minio.admission.concurrency.limit", concurrencyLimiter, AimdConcurrencyLimiter::getLimit)
+                .description("当前的上传并发上限")
+                .register(meterRegistry);
+        Gauge.builder("minio.admission.concurrency.inflight", concurrencyLimiter, AimdConcurrencyLimiter::getInFlight)
+                .description("在途的上传请求数")
+                .register(meterRegistry);
+        localRejected = Counter.builder("minio.admission.rejected").tag("reason", "local").register(meterRegistry);
+        clusterRejected = Counter.builder("minio.admission.rejected").tag("reason", "cluster").register(meterRegistry);
+        concurrencyRejected = Counter.builder("minio.admission.rejected").tag("reason", "concurrency").register(meterRegistry);
+        redisErrors = Counter.builder("minio.admission.redis.errors")
+                .description("访问Redis令牌桶失败、退回本地判断的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 从租户和全局的令牌桶各取一个请求令牌和bytes个字节令牌
+     * @param tenant 租户
+     * @param bytes 请求体大小，未知时传预估值
+     * @return 0 表示放行；否则为建议客户端等待的毫秒数
+     */
+    public long tryAcquire(String tenant, long bytes) {
+        return tryAcquire(tenant, 1, bytes);
+    }
+
+    /**
+     * 只从字节令牌桶取令牌，用于长度未知的请求体在读取过程中追加计费
+     */
+    public long tryAcquireBytes(String tenant, long bytes) {
+        return tryAcquire(tenant, 0, bytes);
+    }
+
+    private long tryAcquire(String tenant, long requests, long bytes) {
+        AdmissionProperties.Limit tenantLimit = admissionProperties.getTenants()
+                .getOrDefault(tenant, admissionProperties.getTenant());
+        AdmissionProperties.Limit globalLimit = admissionProperties.getGlobal();
+
+        if (admissionProperties.isLocalFastPath()) {
+            long wait = takeLocal(tenant, tenantLimit, globalLimit, requests, bytes);
+            if (wait > 0) {
+                localRejected.increment();
+                return wait;
+            }
+        }
+
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        addBuckets(keys, args, KEY_PREFIX + "tenant:" + tenant, tenantLimit, requests, bytes);
+        addBuckets(keys, args, KEY_PREFIX + "global", globalLimit, requests, bytes);
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            Long wait = stringRedisTemplate.execute(TAKE_SCRIPT, keys, args.toArray());
+            if (wait != null && wait > 0) {
+                clusterRejected.increment();
+                return wait;
+            }
+        } catch (Exception e) {
+            redisErrors.increment();
+            long now = System.currentTimeMillis();
+            if (now - lastRedisWarn >= REDIS_WARN_INTERVAL_MILLIS) {
+                lastRedisWarn = now;
+                log.warn("访问Redis令牌桶失败，按本地令牌桶判断: {}", e.getMessage());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 占用一个并发名额，已达到自适应上限时返回false
+     */
+    public boolean tryAcquireConcurrency() {
+        if (!admissionProperties.getConcurrency().isEnabled()) {
+            return true;
+        }
+        if (concurrencyLimiter.tryAcquire()) {
+            return true;
+        }
+        concurrencyRejected.increment();
+        return false;
+    }
+
+    /**
+     * 释放并发名额，请求是否以服务端错误结束用于调整上限
+     */
+    public void releaseConcurrency(boolean dropped) {
+        if (admissionProperties.getConcurrency().isEnabled()) {
+            concurrencyLimiter.release(dropped);
+        }
+    }
+
+    /**
+     * 记录一次MinIO上传调用的耗时和字节数，由访问MinIO的HTTP客户端在调用结束时上报
+     */
+    public void recordMinioLatency(long latencyNanos, long bytes) {
+        if (admissionProperties.getConcurrency().isEnabled()) {
+            concurrencyLimiter.recordLatency(latencyNanos, bytes);
+        }
+    }
+
+    /**
+     * 与admission_take.lua一致，所有本地令牌桶都足够时才扣减：逐个取令牌，有一个不足时退还已取得的令牌
+     * @return 0 表示已放行；否则为各令牌桶中最长的等待毫秒数
+     */
+    private long takeLocal(String tenant, AdmissionProperties.Limit tenantLimit,
+                           AdmissionProperties.Limit globalLimit, long requests, long bytes) {
+        TokenBucket[] tenantBuckets = localBuckets("tenant:" + tenant, tenantLimit);
+        TokenBucket[] globalBuckets = localBuckets("global", globalLimit);
+        TokenBucket[] buckets = {tenantBuckets[0], tenantBuckets[1], globalBuckets[0], globalBuckets[1]};
+        long[] costs = {requests, bytes, requests, bytes};
+        boolean[] taken = new boolean[buckets.length];
+        long wait = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] == null || costs[i] <= 0) {
+                continue;
+            }
+            long bucketWait = buckets[i].tryAcquire(costs[i]);
+            taken[i] = bucketWait == 0;
+            wait = Math.max(wait, bucketWait);
+        }
+        if (wait > 0) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (taken[i]) {
+                    buckets[i].refund(costs[i]);
+                }
+            }
+        }
+        return wait;
+    }
+
+    private TokenBucket[] localBuckets(String key, AdmissionProperties.Limit limit) {
+        return localBuckets.get(key, k -> new TokenBucket[]{
+                limit.getRequestsPerSecond() > 0 ? new TokenBucket(limit.getRequestsPerSecond(), limit.getRequestBurst()) : null,
+                limit.getBytesPerSecond() > 0 ? new TokenBucket(limit.getBytesPerSecond(), limit.getBytesBurst()) : null});
+    }
+
+    private static void addBuckets(List<String> keys, List<String> args, String key,
+                                   AdmissionProperties.Limit limit, long requests, long bytes) {
+        if (limit.getRequestsPerSecond() > 0 && requests > 0) {
+            keys.add(key + ":requests");
+            args.add(String.valueOf(limit.getRequestsPerSecond()));
+            args.add(String.valueOf(Math.max(1, limit.getRequestBurst())));
+            args.add(String.valueOf(requests));
+        }
+        if (limit.getBytesPerSecond() > 0 && bytes > 0) {
+            keys.add(key + ":bytes");
+            args.add(String.valueOf(limit.getBytesPerSecond()));
+            args.add(String.valueOf(Math.max(1, limit.getBytesBurst())));
+            args.add(String.valueOf(bytes));
+        }
+    }
+
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
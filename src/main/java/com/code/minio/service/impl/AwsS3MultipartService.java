@@ -1,14 +1,20 @@
 package com.code.minio.service.impl;
 
+import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
 import com.code.minio.config.MinioProperties;
-import com.code.minio.util.RedisUtil;
+import com.code.minio.config.UploadProperties;
+import com.code.minio.model.UploadClaim;
+import com.code.minio.model.UploadPartRecord;
+import com.code.minio.model.UploadSessionRecord;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -24,15 +30,47 @@ public class AwsS3MultipartService {
     private MinioProperties minioProperties;
     
     @Autowired
-    private RedisUtil redisUtil;
+    private UploadSessionStore uploadSessionStore;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Autowired
+    private DedupService dedupService;
 
     /**
      * 初始化分片上传
      */
     public Map<String, Object> initiateMultipartUpload(String fileName, String contentType) {
+        return initiateMultipartUpload(fileName, contentType, null, null);
+    }
+
+    /**
+     * 初始化分片上传，客户端可预先声明文件的SHA-256和大小
+     * 内容已存在时直接返回已有对象（或服务端复制出的新对象），deduplicated为true，不创建uploadId；
+     * 否则正常创建上传，摘要保存在会话中，合并完成后校验并登记
+     */
+    public Map<String, Object> initiateMultipartUpload(String fileName, String contentType,
+                                                       String sha256, Long fileSize) {
         try {
             // 生成对象名称
             String objectKey = generateObjectKey(fileName);
+
+            String declaredSha256 = dedupService.normalize(sha256);
+            if (declaredSha256 != null && fileSize != null) {
+                Map<String, String> existing = dedupService.lookup(declaredSha256, fileSize);
+                if (existing != null) {
+                    Map<String, String> target = dedupService.materialize(existing, objectKey);
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("deduplicated", true);
+                    response.put("objectKey", target.get("objectKey"));
+                    response.put("etag", target.get("etag"));
+                    response.put("size", fileSize);
+                    response.put("bucketName", minioProperties.getDefaultBucket());
+                    log.info("内容已存在，跳过上传: sha256={}, objectKey={}", declaredSha256, target.get("objectKey"));
+                    return response;
+                }
+            }
             
             // 创建初始化分片上传请求
             InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(
@@ -49,16 +87,18 @@ public class AwsS3MultipartService {
             String uploadId = result.getUploadId();
             
             // 在Redis中保存上传会话信息
-            Map<String, Object> uploadSession = new HashMap<>();
-            uploadSession.put("objectKey", objectKey);
-            uploadSession.put("fileName", fileName);
-            uploadSession.put("contentType", contentType);
-            uploadSession.put("createTime", System.currentTimeMillis());
+            UploadSessionRecord uploadSession = new UploadSessionRecord();
+            uploadSession.setObjectKey(objectKey);
+            uploadSession.setFileName(fileName);
+            uploadSession.setContentType(contentType);
+            uploadSession.setSha256(declaredSha256);
+            uploadSession.setCreateTime(System.currentTimeMillis());
             
-            redisUtil.set("upload_session:" + uploadId, uploadSession, 24 * 3600); // 24小时过期
+            uploadSessionStore.createSession(uploadId, uploadSession); // 24小时过期
             
             // 返回结果
             Map<String, Object> response = new HashMap<>();
+            response.put("deduplicated", false);
             response.put("uploadId", uploadId);
             response.put("objectKey", objectKey);
             response.put("bucketName", minioProperties.getDefaultBucket());
@@ -76,15 +116,32 @@ public class AwsS3MultipartService {
      * 上传单个分片
      */
     public Map<String, Object> uploadPart(String uploadId, int partNumber, MultipartFile partFile) {
+        try (InputStream inputStream = partFile.getInputStream()) {
+            return uploadPart(uploadId, partNumber, inputStream, partFile.getSize());
+        } catch (IOException e) {
+            log.error("读取分片文件失败: uploadId={}, partNumber={}, error={}",
+                    uploadId, partNumber, e.getMessage(), e);
+            throw new RuntimeException("分片上传失败", e);
+        }
+    }
+
+    /**
+     * 以流的方式上传单个分片，数据直接转发给S3，不经过本地磁盘
+     * @param inputStream 分片数据流
+     * @param partSize 分片大小（字节）
+     */
+    public Map<String, Object> uploadPart(String uploadId, int partNumber, InputStream inputStream, long partSize) {
         try {
             // 从Redis获取上传会话信息
-            @SuppressWarnings("unchecked")
-            Map<String, Object> uploadSession = (Map<String, Object>) redisUtil.get("upload_session:" + uploadId);
+            UploadSessionRecord uploadSession = uploadSessionStore.getSession(uploadId);
             if (uploadSession == null) {
                 throw new RuntimeException("上传会话不存在或已过期");
             }
             
-            String objectKey = (String) uploadSession.get("objectKey");
+            String objectKey = uploadSession.getObjectKey();
+            // 记录开始时间，用于判断分片是否超时、需要对冲上传
+            long startMillis = System.currentTimeMillis();
+            uploadSessionStore.beginPart(uploadId, partNumber, startMillis);
             
             // 创建上传分片请求
             UploadPartRequest request = new UploadPartRequest()
@@ -92,28 +149,41 @@ public class AwsS3MultipartService {
                     .withKey(objectKey)
                     .withUploadId(uploadId)
                     .withPartNumber(partNumber)
-                    .withPartSize(partFile.getSize())
-                    .withInputStream(partFile.getInputStream());
+                    .withPartSize(partSize)
+                    .withInputStream(inputStream);
             
             // 上传分片
             UploadPartResult result = amazonS3.uploadPart(request);
             PartETag partETag = result.getPartETag();
             
             // 在Redis中保存分片信息
-            Map<String, Object> partInfo = new HashMap<>();
-            partInfo.put("partNumber", partNumber);
-            partInfo.put("etag", partETag.getETag());
-            partInfo.put("partSize", partFile.getSize());
-            partInfo.put("uploadTime", System.currentTimeMillis());
+            long now = System.currentTimeMillis();
+            UploadPartRecord partRecord = new UploadPartRecord(partNumber, partETag.getETag(),
+                    partSize, now, now - startMillis);
             
-            String partKey = "upload_part:" + uploadId + ":" + partNumber;
-            redisUtil.set(partKey, partInfo, 24 * 3600); // 24小时过期
+            // 校验会话、记录分片、刷新过期时间在一次脚本调用中完成；同一分片先完成的上传胜出
+            UploadPartRecord winner = uploadSessionStore.recordPart(uploadId, partRecord);
+            boolean accepted = winner == partRecord;
             
             // 返回结果
             Map<String, Object> response = new HashMap<>();
             response.put("partNumber", partNumber);
-            response.put("etag", partETag.getETag());
-            response.put("partSize", partFile.getSize());
+            response.put("etag", winner.getEtag());
+            response.put("partSize", winner.getPartSize());
+            response.put("accepted", accepted);
+            if (!accepted) {
+                // 相同内容的ETag相同，落后的对冲上传直接忽略；ETag不同说明两次发送的内容不一致，
+                // MinIO中保留的是最后写入的内容，需要客户端重新上传该分片
+                boolean conflict = !normalizeETag(winner.getEtag()).equals(normalizeETag(partETag.getETag()));
+                response.put("conflict", conflict);
+                if (conflict) {
+                    log.warn("同一分片的多次上传内容不一致: uploadId={}, partNumber={}, recorded={}, late={}",
+                            uploadId, partNumber, winner.getEtag(), partETag.getETag());
+                } else {
+                    log.info("对冲上传落后，已忽略: uploadId={}, partNumber={}", uploadId, partNumber);
+                }
+                return response;
+            }
             
             log.info("分片上传成功: uploadId={}, partNumber={}, etag={}", 
                     uploadId, partNumber, partETag.getETag());
@@ -122,6 +192,13 @@ public class AwsS3MultipartService {
         } catch (Exception e) {
             log.error("分片上传失败: uploadId={}, partNumber={}, error={}", 
                     uploadId, partNumber, e.getMessage(), e);
+            // 失败的分片不再显示为进行中；同一分片仍在进行的对冲上传不受影响，只是不再出现在对冲建议中
+            try {
+                uploadSessionStore.clearInflight(uploadId, List.of(partNumber));
+            } catch (Exception cleanup) {
+                log.warn("清除进行中分片失败: uploadId={}, partNumber={}, error={}",
+                        uploadId, partNumber, cleanup.getMessage());
+            }
             throw new RuntimeException("分片上传失败", e);
         }
     }
@@ -130,18 +207,23 @@ public class AwsS3MultipartService {
      * 完成分片上传
      */
     public Map<String, Object> completeMultipartUpload(String uploadId) {
+        String objectKey;
+        String sha256;
+        List<UploadPartRecord> recordedParts;
+        try {
+            // 原子地抢占会话并取回会话信息和全部分片，并发的合并请求只有一个能继续
+            UploadClaim claim = uploadSessionStore.claimForCompletion(uploadId);
+            objectKey = claim.getSession().getObjectKey();
+            sha256 = claim.getSession().getSha256();
+            recordedParts = claim.getParts();
+        } catch (Exception e) {
+            log.error("完成分片上传失败: uploadId={}, error={}", uploadId, e.getMessage());
+            throw new RuntimeException("完成分片上传失败", e);
+        }
+
         try {
-            // 从Redis获取上传会话信息
-            @SuppressWarnings("unchecked")
-            Map<String, Object> uploadSession = (Map<String, Object>) redisUtil.get("upload_session:" + uploadId);
-            if (uploadSession == null) {
-                throw new RuntimeException("上传会话不存在或已过期");
-            }
-            
-            String objectKey = (String) uploadSession.get("objectKey");
-            
             // 获取所有已上传的分片
-            List<PartETag> partETags = getUploadedParts(uploadId);
+            List<PartETag> partETags = getUploadedParts(uploadId, recordedParts);
             if (partETags.isEmpty()) {
                 throw new RuntimeException("没有找到已上传的分片");
             }
@@ -158,6 +240,8 @@ public class AwsS3MultipartService {
             
             // 清理Redis中的临时数据
             cleanupUploadSession(uploadId);
+            // 客户端声明过摘要时，后台回读校验后登记到去重索引
+            dedupService.verifyAndRegisterAsync(sha256, objectKey);
             
             // 返回结果
             Map<String, Object> response = new HashMap<>();
@@ -172,6 +256,8 @@ public class AwsS3MultipartService {
             
         } catch (Exception e) {
             log.error("完成分片上传失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+            // 释放抢占，允许客户端重试合并
+            uploadSessionStore.releaseClaim(uploadId);
             throw new RuntimeException("完成分片上传失败", e);
         }
     }
@@ -182,14 +268,13 @@ public class AwsS3MultipartService {
     public void abortMultipartUpload(String uploadId) {
         try {
             // 从Redis获取上传会话信息
-            @SuppressWarnings("unchecked")
-            Map<String, Object> uploadSession = (Map<String, Object>) redisUtil.get("upload_session:" + uploadId);
+            UploadSessionRecord uploadSession = uploadSessionStore.getSession(uploadId);
             if (uploadSession == null) {
                 log.warn("上传会话不存在或已过期: uploadId={}", uploadId);
                 return;
             }
             
-            String objectKey = (String) uploadSession.get("objectKey");
+            String objectKey = uploadSession.getObjectKey();
             
             // 取消分片上传
             AbortMultipartUploadRequest request = new AbortMultipartUploadRequest(
@@ -213,21 +298,16 @@ public class AwsS3MultipartService {
     public List<Map<String, Object>> listUploadedParts(String uploadId) {
         try {
             // 从Redis获取上传会话信息
-            @SuppressWarnings("unchecked")
-            Map<String, Object> uploadSession = (Map<String, Object>) redisUtil.get("upload_session:" + uploadId);
+            UploadSessionRecord uploadSession = uploadSessionStore.getSession(uploadId);
             if (uploadSession == null) {
                 throw new RuntimeException("上传会话不存在或已过期");
             }
             
-            String objectKey = (String) uploadSession.get("objectKey");
-            
-            // 列出分片
-            ListPartsRequest request = new ListPartsRequest(
-                    minioProperties.getDefaultBucket(), objectKey, uploadId);
-            PartListing result = amazonS3.listParts(request);
+            String objectKey = uploadSession.getObjectKey();
             
+            // 分页列出全部分片（单页最多1000个）
             List<Map<String, Object>> parts = new ArrayList<>();
-            for (PartSummary part : result.getParts()) {
+            for (PartSummary part : listAllParts(objectKey, uploadId)) {
                 Map<String, Object> partInfo = new HashMap<>();
                 partInfo.put("partNumber", part.getPartNumber());
                 partInfo.put("etag", part.getETag());
@@ -244,27 +324,242 @@ public class AwsS3MultipartService {
         }
     }
 
+    /**
+     * 批量生成分片上传的预签名URL，客户端直接PUT到MinIO，分片数据不经过本服务
+     * @param startPart 起始分片号（包含）
+     * @param endPart 结束分片号（包含）
+     */
+    public Map<String, Object> presignUploadParts(String uploadId, int startPart, int endPart) {
+        try {
+            if (startPart < 1 || endPart > 10000 || startPart > endPart) {
+                throw new IllegalArgumentException("分片号必须在1-10000之间且起始分片号不大于结束分片号");
+            }
+            if (endPart - startPart + 1 > uploadProperties.getMaxPresignBatch()) {
+                throw new IllegalArgumentException("单次最多签名 " + uploadProperties.getMaxPresignBatch() + " 个分片");
+            }
+
+            // 从Redis获取上传会话信息
+            UploadSessionRecord uploadSession = uploadSessionStore.getSession(uploadId);
+            if (uploadSession == null) {
+                throw new RuntimeException("上传会话不存在或已过期");
+            }
+            String objectKey = uploadSession.getObjectKey();
+
+            // 签名在本地完成，不产生网络请求
+            Date expiration = new Date(System.currentTimeMillis()
+                    + uploadProperties.getPresignedPartExpiry().toMillis());
+            List<Map<String, Object>> urls = new ArrayList<>();
+            for (int partNumber = startPart; partNumber <= endPart; partNumber++) {
+                GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(
+                        minioProperties.getDefaultBucket(), objectKey, HttpMethod.PUT)
+                        .withExpiration(expiration);
+                request.addRequestParameter("uploadId", uploadId);
+                request.addRequestParameter("partNumber", String.valueOf(partNumber));
+
+                Map<String, Object> partUrl = new HashMap<>();
+                partUrl.put("partNumber", partNumber);
+                partUrl.put("url", amazonS3.generatePresignedUrl(request).toString());
+                urls.add(partUrl);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("uploadId", uploadId);
+            response.put("objectKey", objectKey);
+            response.put("expiration", expiration.getTime());
+            response.put("parts", urls);
+            return response;
+
+        } catch (Exception e) {
+            log.error("生成分片预签名URL失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+            throw new RuntimeException("生成分片预签名URL失败", e);
+        }
+    }
+
+    /**
+     * 完成预签名直传的分片上传
+     * 客户端上报各分片的ETag，与MinIO中实际存在的分片逐一核对后再合并
+     * @param clientParts 客户端上报的分片号与ETag，分片号需严格递增
+     * @throws IllegalArgumentException 分片列表为空、分片号越界、重复或未按升序排列
+     */
+    public Map<String, Object> completePresignedUpload(String uploadId, List<PartETag> clientParts) {
+        validateClientParts(clientParts);
+        String objectKey;
+        String sha256;
+        try {
+            // 抢占会话，防止并发合并
+            UploadSessionRecord uploadSession = uploadSessionStore.claimForCompletion(uploadId).getSession();
+            objectKey = uploadSession.getObjectKey();
+            sha256 = uploadSession.getSha256();
+        } catch (Exception e) {
+            log.error("完成分片上传失败: uploadId={}, error={}", uploadId, e.getMessage());
+            throw new RuntimeException("完成分片上传失败", e);
+        }
+
+        try {
+            List<PartETag> partETags = new ArrayList<>(clientParts);
+
+            // 与服务端实际分片核对ETag和大小
+            Map<Integer, PartSummary> serverParts = new HashMap<>();
+            for (PartSummary part : listAllParts(objectKey, uploadId)) {
+                serverParts.put(part.getPartNumber(), part);
+            }
+            for (int i = 0; i < partETags.size(); i++) {
+                PartETag clientPart = partETags.get(i);
+                PartSummary serverPart = serverParts.get(clientPart.getPartNumber());
+                if (serverPart == null) {
+                    throw new RuntimeException("分片不存在: partNumber=" + clientPart.getPartNumber());
+                }
+                if (!normalizeETag(serverPart.getETag()).equals(normalizeETag(clientPart.getETag()))) {
+                    throw new RuntimeException("分片ETag不一致: partNumber=" + clientPart.getPartNumber());
+                }
+                // 除最后一个分片外，每个分片至少5MB
+                if (i < partETags.size() - 1 && serverPart.getSize() < 5 * 1024 * 1024) {
+                    throw new RuntimeException("分片小于5MB: partNumber=" + clientPart.getPartNumber());
+                }
+            }
+
+            CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(
+                    minioProperties.getDefaultBucket(), objectKey, uploadId, partETags);
+            CompleteMultipartUploadResult result = amazonS3.completeMultipartUpload(request);
+
+            // 清理Redis中的临时数据
+            cleanupUploadSession(uploadId);
+            dedupService.verifyAndRegisterAsync(sha256, objectKey);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("objectKey", objectKey);
+            response.put("etag", result.getETag());
+            response.put("location", result.getLocation());
+            response.put("bucketName", result.getBucketName());
+
+            log.info("预签名分片上传完成: uploadId={}, objectKey={}, parts={}, etag={}",
+                    uploadId, objectKey, partETags.size(), result.getETag());
+            return response;
+
+        } catch (Exception e) {
+            log.error("完成分片上传失败: uploadId={}, error={}", uploadId, e.getMessage(), e);
+            // 释放抢占，允许客户端补传后重试
+            uploadSessionStore.releaseClaim(uploadId);
+            throw new RuntimeException("完成分片上传失败", e);
+        }
+    }
+
+    /**
+     * 分页列出MinIO中某次分片上传的全部分片
+     */
+    public List<PartSummary> listAllParts(String objectKey, String uploadId) {
+        List<PartSummary> parts = new ArrayList<>();
+        ListPartsRequest request = new ListPartsRequest(
+                minioProperties.getDefaultBucket(), objectKey, uploadId);
+        PartListing listing;
+        do {
+            listing = amazonS3.listParts(request);
+            parts.addAll(listing.getParts());
+            request.setPartNumberMarker(listing.getNextPartNumberMarker());
+        } while (listing.isTruncated());
+        return parts;
+    }
+
+    /**
+     * 校验客户端上报的分片列表，与S3合并请求的要求一致：分片号在1-10000之间且严格递增，ETag不能为空
+     */
+    private void validateClientParts(List<PartETag> clientParts) {
+        if (clientParts == null || clientParts.isEmpty()) {
+            throw new IllegalArgumentException("分片列表不能为空");
+        }
+        int previous = 0;
+        for (PartETag part : clientParts) {
+            int partNumber = part.getPartNumber();
+            if (partNumber < 1 || partNumber > 10000) {
+                throw new IllegalArgumentException("分片号必须在1-10000之间: partNumber=" + partNumber);
+            }
+            if (partNumber == previous) {
+                throw new IllegalArgumentException("分片号重复: partNumber=" + partNumber);
+            }
+            if (partNumber < previous) {
+                throw new IllegalArgumentException("分片号必须按升序排列: partNumber=" + partNumber);
+            }
+            if (part.getETag() == null || part.getETag().isBlank()) {
+                throw new IllegalArgumentException("分片ETag不能为空: partNumber=" + partNumber);
+            }
+            previous = partNumber;
+        }
+    }
+
+    private String normalizeETag(String etag) {
+        return etag == null ? "" : etag.replace("\"", "");
+    }
+
+    /**
+     * 对冲上传建议
+     * 用已完成分片的上传耗时中位数估计单个分片的正常耗时，进行中的分片超过 中位数×倍数 且不少于最小超时时间时，
+     * 建议客户端再发送一次该分片；先完成的一次被记录，另一次完成后自动忽略
+     */
+    public Map<String, Object> hedgeHints(String uploadId) {
+        if (uploadSessionStore.getSession(uploadId) == null) {
+            throw new RuntimeException("上传会话不存在或已过期");
+        }
+        UploadProperties.Hedge hedge = uploadProperties.getHedge();
+        List<Long> durations = new ArrayList<>();
+        for (UploadPartRecord part : uploadSessionStore.getParts(uploadId)) {
+            if (part.getDurationMillis() > 0) {
+                durations.add(part.getDurationMillis());
+            }
+        }
+        Collections.sort(durations);
+        Map<Integer, Long> inflight = uploadSessionStore.getInflightParts(uploadId);
+        // 节点宕机等原因没有清除的记录超过失效时间后视为已中断，不再建议对冲并从Redis中删除
+        long staleBefore = System.currentTimeMillis() - hedge.getStaleAfter().toMillis();
+        List<Integer> stale = new ArrayList<>();
+        inflight.forEach((partNumber, startMillis) -> {
+            if (startMillis < staleBefore) {
+                stale.add(partNumber);
+            }
+        });
+        if (!stale.isEmpty()) {
+            stale.forEach(inflight::remove);
+            uploadSessionStore.clearInflight(uploadId, stale);
+        }
+
+        List<Map<String, Object>> overdue = new ArrayList<>();
+        Long median = durations.isEmpty() ? null : durations.get(durations.size() / 2);
+        if (durations.size() >= hedge.getMinSamples()) {
+            long threshold = Math.max((long) (median * hedge.getOverdueMultiplier()), hedge.getMinOverdue().toMillis());
+            long now = System.currentTimeMillis();
+            inflight.forEach((partNumber, startMillis) -> {
+                long elapsed = now - startMillis;
+                if (elapsed > threshold) {
+                    Map<String, Object> hint = new HashMap<>();
+                    hint.put("partNumber", partNumber);
+                    hint.put("elapsedMillis", elapsed);
+                    hint.put("thresholdMillis", threshold);
+                    overdue.add(hint);
+                }
+            });
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("uploadId", uploadId);
+        result.put("completedParts", durations.size());
+        result.put("inflightParts", inflight.keySet());
+        result.put("medianPartMillis", median);
+        result.put("overdueParts", overdue);
+        return result;
+    }
+
     /**
      * 获取所有已上传的分片ETags
+     * @param recordedParts 抢占会话时从Redis取回的分片信息
      */
-    private List<PartETag> getUploadedParts(String uploadId) {
+    private List<PartETag> getUploadedParts(String uploadId, List<UploadPartRecord> recordedParts) {
         // 这里可以通过两种方式获取：
         // 1. 从Redis获取（更快）
         // 2. 从MinIO服务器获取（更可靠）
         
         // 方式1：从Redis获取
         List<PartETag> partETags = new ArrayList<>();
-        
-        // 扫描Redis中的分片信息
-        Set<String> partKeys = redisUtil.keys("upload_part:" + uploadId + ":*");
-        for (String partKey : partKeys) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> partInfo = (Map<String, Object>) redisUtil.get(partKey);
-            if (partInfo != null) {
-                Integer partNumber = (Integer) partInfo.get("partNumber");
-                String etag = (String) partInfo.get("etag");
-                partETags.add(new PartETag(partNumber, etag));
-            }
+        for (UploadPartRecord part : recordedParts) {
+            partETags.add(new PartETag(part.getPartNumber(), part.getEtag()));
         }
         
         // 如果Redis中没有数据，从MinIO服务器获取
@@ -284,14 +579,8 @@ public class AwsS3MultipartService {
      * 清理上传会话的临时数据
      */
     private void cleanupUploadSession(String uploadId) {
-        // 删除会话信息
-        redisUtil.del("upload_session:" + uploadId);
-        
-        // 删除所有分片信息
-        Set<String> partKeys = redisUtil.keys("upload_part:" + uploadId + ":*");
-        for (String partKey : partKeys) {
-            redisUtil.del(partKey);
-        }
+        // 会话信息和分片索引一次删除
+        uploadSessionStore.delete(uploadId);
     }
 
     /**
@@ -302,6 +591,4 @@ public class AwsS3MultipartService {
                 LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE), fileName);
     }
 
-    // 需要在RedisUtil中添加keys方法
-    // 或者可以直接注入StringRedisTemplate来实现keys功能
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.CompressionProperties;
+import com.code.minio.util.CompressionCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按业务类型决定上传时是否压缩
+ */
+@Service
+@Slf4j
+public class CompressionService {
+
+    @Autowired
+    private CompressionProperties compressionProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CompressionCodec> codecs = new HashMap<>();
+
+    private Counter originalBytes;
+
+    private Counter storedBytes;
+
+    @PostConstruct
+    public void init() {
+        compressionProperties.getCodecs().forEach((bizType, id) -> {
+            CompressionCodec codec = CompressionCodec.of(id);
+            if (codec != null) {
+                codecs.put(bizType, codec);
+            } else if (!"none".equalsIgnoreCase(id)) {
+                log.warn("不支持的压缩格式，该业务类型不压缩: bizType={}, codec={}", bizType, id);
+            }
+        });
+        originalBytes = Counter.builder("minio.compression.bytes").tag("stage", "original")
+                .baseUnit("bytes").register(meterRegistry);
+        storedBytes = Counter.builder("minio.compression.bytes").tag("stage", "stored")
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * 业务类型对应的压缩格式，不压缩时返回null
+     */
+    public CompressionCodec codecFor(String bizType, long size) {
+        if (size >= 0 && size < compressionProperties.getMinSize()) {
+            return null;
+        }
+        return codecs.get(bizType);
+    }
+
+    public InputStream compress(CompressionCodec codec, InputStream in) {
+        return codec.compress(in, compressionProperties.getLevel());
+    }
+
+    /**
+     * 写入对象的用户元数据：压缩格式和原始大小
+     */
+    public Map<String, String> metadata(CompressionCodec codec, long originalSize) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(CompressionCodec.META_CODEC, codec.getId());
+        metadata.put(CompressionCodec.META_ORIGINAL_SIZE, String.valueOf(originalSize));
+        return metadata;
+    }
+
+    public void record(long original, long stored) {
+        originalBytes.increment(original);
+        storedBytes.increment(stored);
+    }
+}
@@ -0,0 +1,229 @@
+package com.code.minio.service.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.code.minio.config.DedupProperties;
+import com.code.minio.config.MinioProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 按内容去重
+ * Redis中以 dedup:sha256:<摘要> 为键保存内容对应的对象名、大小和ETag；
+ * 只登记服务端自己算出的摘要，客户端声明的摘要在合并完成后由后台任务回读对象核对，一致才登记，避免错误的声明污染索引
+ */
+@Service
+@Slf4j
+public class DedupService {
+
+    public static final String KEY_PREFIX = "dedup:sha256:";
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private static final DefaultRedisScript<Long> REGISTER_SCRIPT = script("scripts/dedup_register.lua");
+
+    @Autowired
+    private AmazonS3 amazonS3;
+
+    @Autowired
+    private MinioProperties minioProperties;
+
+    @Autowired
+    private DedupProperties dedupProperties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cleanupExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    private Counter savedBytes;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("minio.dedup.lookups").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("minio.dedup.lookups").tag("result", "miss").register(meterRegistry);
+        savedBytes = Counter.builder("minio.dedup.bytes.saved")
+                .description("去重命中后免于传输的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 规范化客户端传入的摘要，格式不正确时返回null
+     */
+    public String normalize(String sha256) {
+        if (sha256 == null) {
+            return null;
+        }
+        String hex = sha256.trim().toLowerCase(Locale.ROOT);
+        return SHA256_HEX.matcher(hex).matches() ? hex : null;
+    }
+
+    /**
+     * 按摘要查找已存在的内容
+     * 索引中的对象会用HEAD核对是否仍存在、大小和ETag是否未变，已失效的条目直接删除；
+     * 要求客户端同时给出文件大小，大小不一致视为未命中
+     *
+     * @param sha256 规范化后的摘要
+     * @param size 客户端声明的文件大小
+     * @return 命中时返回objectKey、size、etag，否则返回null
+     */
+    public Map<String, String> lookup(String sha256, long size) {
+        if (!dedupProperties.isEnabled() || sha256 == null) {
+            return null;
+        }
+        String key = KEY_PREFIX + sha256;
+        Map<Object, Object> entry = stringRedisTemplate.opsForHash().entries(key);
+        if (entry.isEmpty()) {
+            misses.increment();
+            return null;
+        }
+        String objectKey = (String) entry.get("objectKey");
+        String etag = (String) entry.get("etag");
+        long entrySize = Long.parseLong((String) entry.getOrDefault("size", "-1"));
+        if (entrySize != size) {
+            misses.increment();
+            return null;
+        }
+        try {
+            ObjectMetadata metadata = amazonS3.getObjectMetadata(minioProperties.getDefaultBucket(), objectKey);
+            if (metadata.getContentLength() != entrySize || !normalizeETag(metadata.getETag()).equals(etag)) {
+                stringRedisTemplate.delete(key);
+                misses.increment();
+                log.info("去重索引已失效，删除: sha256={}, object={}", sha256, objectKey);
+                return null;
+            }
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                stringRedisTemplate.delete(key);
+                misses.increment();
+                log.info("去重索引指向的对象已删除: sha256={}, object={}", sha256, objectKey);
+                return null;
+            }
+            throw e;
+        }
+        hits.increment();
+        savedBytes.increment(entrySize);
+        Map<String, String> result = new HashMap<>();
+        result.put("objectKey", objectKey);
+        result.put("size", String.valueOf(entrySize));
+        result.put("etag", etag);
+        return result;
+    }
+
+    /**
+     * 命中后按配置返回已有对象，或在服务端复制到新对象名
+     * @param existing lookup的结果
+     * @param objectKey copy模式下的新对象名
+     * @return 最终对象名与ETag
+     */
+    public Map<String, String> materialize(Map<String, String> existing, String objectKey) {
+        long size = Long.parseLong(existing.get("size"));
+        if (!"copy".equalsIgnoreCase(dedupProperties.getMode()) || size > dedupProperties.getMaxCopySize()) {
+            return existing;
+        }
+        String bucket = minioProperties.getDefaultBucket();
+        CopyObjectResult result = amazonS3.copyObject(new CopyObjectRequest(
+                bucket, existing.get("objectKey"), bucket, objectKey));
+        Map<String, String> copied = new HashMap<>(existing);
+        copied.put("objectKey", objectKey);
+        copied.put("etag", normalizeETag(result.getETag()));
+        log.info("去重命中，服务端复制: source={}, target={}", existing.get("objectKey"), objectKey);
+        return copied;
+    }
+
+    /**
+     * 登记服务端计算出的摘要，已有条目时保留先登记的对象
+     */
+    public void register(String sha256, String objectKey, long size, String etag) {
+        if (!dedupProperties.isEnabled() || sha256 == null) {
+            return;
+        }
+        // 对象名、大小和ETag在一个脚本中原子写入
+        Long registered = stringRedisTemplate.execute(REGISTER_SCRIPT, List.of(KEY_PREFIX + sha256),
+                objectKey, String.valueOf(size), normalizeETag(etag));
+        if (Long.valueOf(1).equals(registered)) {
+            log.debug("登记去重索引: sha256={}, object={}", sha256, objectKey);
+        }
+    }
+
+    /**
+     * 分片上传的各分片可能乱序、经预签名URL直传，服务端无法边传边算整体摘要；
+     * 合并完成后在后台回读对象计算摘要，与客户端声明一致时才登记
+     */
+    public void verifyAndRegisterAsync(String declaredSha256, String objectKey) {
+        if (!dedupProperties.isEnabled() || declaredSha256 == null) {
+            return;
+        }
+        try {
+            cleanupExecutor.execute(() -> verifyAndRegister(declaredSha256, objectKey));
+        } catch (TaskRejectedException e) {
+            log.warn("去重校验队列已满，跳过登记: object={}", objectKey);
+        }
+    }
+
+    private void verifyAndRegister(String declaredSha256, String objectKey) {
+        try (S3Object object = amazonS3.getObject(minioProperties.getDefaultBucket(), objectKey);
+             InputStream in = object.getObjectContent()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            long size = 0;
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+                size += n;
+            }
+            String actual = HexFormat.of().formatHex(digest.digest());
+            if (!actual.equals(declaredSha256)) {
+                log.warn("声明的摘要与内容不一致，不登记去重索引: object={}, declared={}, actual={}",
+                        objectKey, declaredSha256, actual);
+                return;
+            }
+            register(actual, objectKey, size, object.getObjectMetadata().getETag());
+        } catch (Exception e) {
+            log.error("去重校验失败: object={}, error={}", objectKey, e.getMessage(), e);
+        }
+    }
+
+    private String normalizeETag(String etag) {
+        return etag == null ? "" : etag.replace("\"", "");
+    }
+
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
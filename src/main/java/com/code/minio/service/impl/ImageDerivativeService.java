@@ -0,0 +1,244 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.ImageProperties;
+import com.code.minio.config.MinioProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.http.Method;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图片衍生图
+ * 图片上传后把生成任务提交到有界线程池，按配置的版本缩放、重新编码并存到衍生前缀下；
+ * 上传接口只返回衍生图的预签名URL，不等待生成完成
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private MinioProperties minioProperties;
+
+    @Autowired
+    private ImageProperties imageProperties;
+
+    @Autowired
+    private PresignedUrlService presignedUrlService;
+
+    @Autowired
+    private ObjectCacheService objectCacheService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor imageExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer processTimer;
+
+    private Counter bytesSaved;
+
+    private Counter rejected;
+
+    private Counter failed;
+
+    /**
+     * 已提交且尚未处理完的原图字节数，队列按字节数而不是任务数限制堆内存占用
+     */
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("minio.image.queue.depth", imageExecutor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("等待生成衍生图的任务数")
+                .register(meterRegistry);
+        Gauge.builder("minio.image.pending.bytes", pendingBytes, AtomicLong::get)
+                .description("已提交且尚未处理完的原图字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        processTimer = Timer.builder("minio.image.process")
+                .description("单张图片生成全部衍生图的耗时")
+                .register(meterRegistry);
+        bytesSaved = Counter.builder("minio.image.bytes.saved")
+                .description("衍生图相对原图节省的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        rejected = Counter.builder("minio.image.tasks").tag("result", "rejected").register(meterRegistry);
+        failed = Counter.builder("minio.image.tasks").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * 提交衍生图生成任务，立即返回各版本的对象名和预签名URL
+     * @param objectName 原图对象名
+     * @param data 原图内容
+     * @return 版本名到预签名URL的映射；原图过大、待处理字节数超过上限或队列已满时返回空映射
+     */
+    public Map<String, String> submit(String objectName, byte[] data) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        if (data.length > imageProperties.getMaxSourceBytes() || imageProperties.getVariants().isEmpty()) {
+            return urls;
+        }
+        if (pendingBytes.addAndGet(data.length) > imageProperties.getMaxPendingBytes()) {
+            pendingBytes.addAndGet(-data.length);
+            rejected.increment();
+            log.warn("衍生图待处理字节数已达上限，跳过: object={}, pending={}", objectName, pendingBytes.get());
+            return urls;
+        }
+        try {
+            imageExecutor.execute(() -> {
+                try {
+                    process(objectName, data);
+                } finally {
+                    pendingBytes.addAndGet(-data.length);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pendingBytes.addAndGet(-data.length);
+            rejected.increment();
+            log.warn("衍生图队列已满，跳过: object={}", objectName);
+            return urls;
+        }
+        for (ImageProperties.Variant variant : imageProperties.getVariants()) {
+            urls.put(variant.getName(), presignedUrlService.presign(minioProperties.getDefaultBucket(),
+                    derivedKey(objectName, variant), Method.GET, minioProperties.getPresignedUrlExpiry(), TimeUnit.DAYS));
+        }
+        return urls;
+    }
+
+    /**
+     * 衍生图对象名：前缀/版本名/原对象名.格式
+     */
+    public String derivedKey(String objectName, ImageProperties.Variant variant) {
+        return imageProperties.getDerivedPrefix() + "/" + variant.getName() + "/" + objectName + "." + variant.getFormat();
+    }
+
+    private void process(String objectName, byte[] data) {
+        long start = System.nanoTime();
+        try {
+            BufferedImage source = decode(objectName, data);
+            if (source == null) {
+                return;
+            }
+            for (ImageProperties.Variant variant : imageProperties.getVariants()) {
+                byte[] encoded = encode(resize(source, variant), variant);
+                String key = derivedKey(objectName, variant);
+                minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(minioProperties.getDefaultBucket())
+                        .object(key)
+                        .stream(new ByteArrayInputStream(encoded), encoded.length, -1)
+                        .contentType("png".equalsIgnoreCase(variant.getFormat()) ? "image/png" : "image/jpeg")
+                        .build());
+                objectCacheService.invalidate(key);
+                bytesSaved.increment(Math.max(0, data.length - encoded.length));
+                log.debug("生成衍生图: object={}, size={}", key, encoded.length);
+            }
+        } catch (Exception e) {
+            failed.increment();
+            log.error("生成衍生图失败: object={}, error={}", objectName, e.getMessage(), e);
+        } finally {
+            processTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 先读取图片头中的宽高，像素数超过上限时不解码，避免体积很小但尺寸极大的图片在解码时耗尽堆内存
+     * @return 解码后的图片，格式不支持或尺寸超限时返回null
+     */
+    BufferedImage decode(String objectName, byte[] data) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                log.info("不支持的图片格式，跳过衍生图: object={}", objectName);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long width = reader.getWidth(0);
+                long height = reader.getHeight(0);
+                if (width * height > imageProperties.getMaxSourcePixels()) {
+                    rejected.increment();
+                    log.warn("图片尺寸超过上限，跳过衍生图: object={}, width={}, height={}", objectName, width, height);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按比例缩放到不超过版本尺寸，不放大；jpg不支持透明通道，统一转为RGB
+     */
+    private BufferedImage resize(BufferedImage source, ImageProperties.Variant variant) {
+        double scale = Math.min(1.0, Math.min((double) variant.getWidth() / source.getWidth(),
+                (double) variant.getHeight() / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean png = "png".equalsIgnoreCase(variant.getFormat());
+        BufferedImage target = new BufferedImage(width, height,
+                png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, png ? null : Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image, ImageProperties.Variant variant) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if ("png".equalsIgnoreCase(variant.getFormat())) {
+            ImageIO.write(image, "png", output);
+            return output.toByteArray();
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(variant.getQuality());
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+}
@@ -1,25 +1,56 @@
 package com.code.minio.service.impl;
 
 import com.code.minio.config.MinioProperties;
+import com.code.minio.config.UploadProperties;
+import com.code.minio.model.CustomMinioAsyncClient;
+import com.code.minio.util.BufferPool;
+import com.code.minio.util.MemoryBudget;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
 import io.minio.*;
 import io.minio.http.Method;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
+import io.minio.messages.Part;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
 public class MinioChunkUploadService {
 
+    /** 分层合并的中间对象前缀 */
+    public static final String COMPOSE_TEMP_PREFIX = ".compose/";
+    private static final String COMPOSE_SOURCES_META = "compose-sources";
+    /** 服务端到MinIO的链路在自适应分片模型中的网段标识 */
+    public static final String MINIO_NETWORK_KEY = "minio";
+
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
     @Autowired
@@ -27,36 +58,165 @@ public class MinioChunkUploadService {
     @Autowired
     private MinioAsyncClient minioAsyncClient;
     @Autowired
+    private CustomMinioAsyncClient customMinioAsyncClient;
+    @Autowired
     private MinioProperties minioProperties;
+    @Autowired
+    private UploadProperties uploadProperties;
+    @Autowired
+    private ThreadPoolTaskExecutor cleanupExecutor;
+    @Autowired
+    private PresignedUrlService presignedUrlService;
+    @Autowired
+    private MemoryBudget pipelineMemoryBudget;
+    // AdaptiveChunkSizeService的静态分档依赖本类，延迟注入避免循环依赖
+    @Lazy
+    @Autowired
+    private AdaptiveChunkSizeService adaptiveChunkSizeService;
 
 
     public String multipartUpload(MultipartFile file) throws Exception{
-        // 计算分片大小
-        int partSize = calculateOptimalChunkSize(file.getSize());
+        // 按服务端到MinIO链路的实测吞吐计算分片大小，样本不足时退回静态分档
+        int partSize = pipelinePartSize(file.getSize());
         String newFileName = String.format("%s/%s",
                 LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE), file.getOriginalFilename());
         log.info("构建分片文件名: {}", newFileName);
         // 分片上传
         try(InputStream inputStream = file.getInputStream()){
-            minioClient.putObject(PutObjectArgs.builder()
-                    .bucket(minioProperties.getDefaultBucket())
-                    .object(newFileName)
-                    .stream(inputStream, file.getSize(), partSize)
-                    .build());
+            if (file.getSize() <= partSize || partSize < ObjectWriteArgs.MIN_MULTIPART_SIZE) {
+                // 只有一个分片，直接上传
+                minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(minioProperties.getDefaultBucket())
+                        .object(newFileName)
+                        .stream(inputStream, file.getSize(), -1)
+                        .contentType(file.getContentType())
+                        .build());
+            } else {
+                pipelineUpload(inputStream, newFileName, file.getContentType(), partSize);
+            }
         } catch (Exception e) {
-            throw new RuntimeException("分片上传失败");
+            log.error("分片上传失败: {}", e.getMessage(), e);
+            throw new RuntimeException("分片上传失败", e);
         }
         // 获取上传的预签名URL
-        String presignedObjectUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                .bucket(minioProperties.getDefaultBucket())
-                .object(newFileName)
-                .method(Method.GET)
-                .expiry(minioProperties.getPresignedUrlExpiry(), TimeUnit.MINUTES)
-                .build());
+        String presignedObjectUrl = presignedUrlService.presign(minioProperties.getDefaultBucket(), newFileName,
+                Method.GET, minioProperties.getPresignedUrlExpiry(), TimeUnit.MINUTES);
         log.info("获取上传的预签名URL: {}", presignedObjectUrl);
         return newFileName;
     }
 
+    /**
+     * 流水线上传的分片大小：自适应推荐值，不超过共享内存预算和单个数组的上限
+     */
+    private int pipelinePartSize(long fileSize) {
+        long partSize = (long) adaptiveChunkSizeService.recommend(MINIO_NETWORK_KEY, Math.max(1, fileSize)).get("partSize");
+        long limit = Math.max(AdaptiveChunkSizeService.MIN_PART_SIZE,
+                Math.min(uploadProperties.getPipelineBufferBudget(), Integer.MAX_VALUE - 8));
+        return (int) Math.min(partSize, limit);
+    }
+
+    /**
+     * 流水线分片上传
+     * 读线程把输入流切成partSize大小的缓冲区，同时保持最多N个uploadPart请求在途；
+     * 缓冲区池耗尽或本节点共享的内存预算不足时读线程阻塞等待，所有流水线上传的缓冲区合计不超过pipeline-buffer-budget
+     *
+     * @param inputStream 文件流
+     * @param objectName 对象名称
+     * @param contentType 文件类型
+     * @param partSize 分片大小（字节）
+     */
+    public void pipelineUpload(InputStream inputStream, String objectName, String contentType, int partSize) throws Exception {
+        String bucket = minioProperties.getDefaultBucket();
+        int concurrency = (int) Math.max(1, Math.min(uploadProperties.getPipelineConcurrency(),
+                uploadProperties.getPipelineBufferBudget() / partSize));
+
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        String uploadId = customMinioAsyncClient.initMultiPart(bucket, objectName, headers)
+                .get().result().uploadId();
+        log.info("初始化流水线分片上传: uploadId={}, partSize={}, concurrency={}", uploadId, partSize, concurrency);
+
+        BufferPool bufferPool = new BufferPool(partSize, concurrency, false, pipelineMemoryBudget);
+        List<CompletableFuture<Part>> partFutures = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            int partNumber = 0;
+            while (failure.get() == null) {
+                // 背压：在途分片数达到上限时在此等待
+                ByteBuffer buffer = bufferPool.acquire(1, TimeUnit.SECONDS);
+                if (buffer == null) {
+                    continue;
+                }
+                int length = readFully(inputStream, buffer.array(), partSize);
+                if (length == 0 && partNumber > 0) {
+                    bufferPool.release(buffer);
+                    break;
+                }
+                int currentPart = ++partNumber;
+                // 分片耗时作为服务端到MinIO链路的样本，供后续上传推荐分片大小
+                AdaptiveChunkSizeService.PartTimer timer = adaptiveChunkSizeService.start(MINIO_NETWORK_KEY);
+                CompletableFuture<Part> partFuture;
+                try {
+                    partFuture = customMinioAsyncClient
+                            .uploadPart(bucket, objectName, uploadId, currentPart, buffer.array(), length)
+                            .thenApply(response -> new Part(currentPart, response.etag()));
+                } catch (Exception e) {
+                    adaptiveChunkSizeService.finish(timer, length, false);
+                    bufferPool.release(buffer);
+                    throw e;
+                }
+                partFutures.add(partFuture.whenComplete((part, e) -> {
+                    adaptiveChunkSizeService.finish(timer, length, e == null);
+                    bufferPool.release(buffer);
+                    if (e != null) {
+                        failure.compareAndSet(null, e);
+                    }
+                }));
+                if (length < partSize) {
+                    break;
+                }
+            }
+
+            CompletableFuture.allOf(partFutures.toArray(new CompletableFuture<?>[0])).join();
+            Part[] parts = partFutures.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparingInt(Part::partNumber))
+                    .toArray(Part[]::new);
+            ObjectWriteResponse response = customMinioAsyncClient
+                    .mergeMultipartUpload(bucket, objectName, uploadId, parts).get();
+            log.info("流水线分片上传完成: uploadId={}, parts={}, etag={}", uploadId, parts.length, response.etag());
+        } catch (Exception e) {
+            log.error("流水线分片上传失败，取消上传: uploadId={}, error={}", uploadId, e.getMessage());
+            // 等待在途分片结束后再取消，避免取消后仍有分片写入
+            CompletableFuture.allOf(partFutures.toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(ex -> null).join();
+            customMinioAsyncClient.abortMultipart(bucket, objectName, uploadId).exceptionally(ex -> {
+                log.warn("取消分片上传失败: uploadId={}, error={}", uploadId, ex.getMessage());
+                return null;
+            });
+            throw e;
+        } finally {
+            // 成功和失败路径都已等待在途分片结束，此时所有缓冲区均已归还，把预算还给其他上传
+            bufferPool.close();
+        }
+    }
+
+    /**
+     * 尽量读满length个字节，返回实际读取的字节数（流结束时可能小于length）
+     */
+    private int readFully(InputStream inputStream, byte[] buffer, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int n = inputStream.read(buffer, total, length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
 
 
 
@@ -114,38 +274,159 @@ public class MinioChunkUploadService {
     }
 
 
-    public void multipartMerge(List<String> partFileNames) throws Exception{
-        final String mergeFileName = "约会大作战.mp4";
-        // 构建合并集合
-        List<ComposeSource> composeSources = partFileNames.stream().map(partName -> ComposeSource.builder()
-                        .bucket(minioProperties.getDefaultBucket())
+    /**
+     * 合并分片对象
+     * 源对象个数不超过一批时直接合并；否则按批并行合并成中间对象，逐层向上合并直到只剩一批。
+     * 中间对象名由源对象列表的摘要确定，并在元数据中记录所含源对象的摘要，重试时已完成的中间对象直接复用。
+     * 合并成功后源对象和中间对象在后台批量删除
+     *
+     * @param mergeFileName 合并后的对象名称
+     * @param partFileNames 按顺序排列的分片对象名称
+     * @return 合并后文件的预签名URL
+     */
+    public String multipartMerge(String mergeFileName, List<String> partFileNames) throws Exception{
+        Assert.hasText(mergeFileName, "合并后的文件名不能为空");
+        Assert.notEmpty(partFileNames, "分片列表不能为空");
+        String bucket = minioProperties.getDefaultBucket();
+        int batchSize = Math.max(2, uploadProperties.getComposeBatchSize());
+
+        // 中间对象放在以本次合并源列表摘要命名的目录下，同样的合并请求重试时名称不变
+        String intermediatePrefix = COMPOSE_TEMP_PREFIX + digest(partFileNames) + "/";
+        List<String> intermediates = new ArrayList<>();
+        List<String> sources = partFileNames;
+        int level = 0;
+        while (sources.size() > batchSize) {
+            sources = composeLevel(bucket, sources, batchSize, intermediatePrefix + "L" + level + "-");
+            intermediates.addAll(sources);
+            level++;
+        }
+        composeBatch(bucket, mergeFileName, sources).join();
+        log.info("合并完成: object={}, parts={}, levels={}", mergeFileName, partFileNames.size(), level);
+
+        // 清理分片文件和中间对象
+        List<String> garbage = new ArrayList<>(partFileNames);
+        garbage.addAll(intermediates);
+        try {
+            cleanupExecutor.execute(() -> removeObjects(bucket, garbage));
+        } catch (TaskRejectedException e) {
+            // 中间对象由后台清理任务按过期时间回收；分片源对象只记录日志，不阻塞本次合并
+            log.warn("清理队列已满，跳过删除: merged={}, parts={}, intermediates={}, firstPart={}",
+                    mergeFileName, partFileNames.size(), intermediates.size(), partFileNames.get(0));
+        }
+
+        // 合并后的文件URL
+        String presignedObjectUrl = presignedUrlService.presign(bucket, mergeFileName,
+                Method.GET, minioProperties.getPresignedUrlExpiry(), TimeUnit.MINUTES);
+        log.info("获取合并后的文件URL: {}", presignedObjectUrl);
+        return presignedObjectUrl;
+    }
+
+    /**
+     * 把一层源对象按批并行合并成中间对象，最多同时进行composeConcurrency个合并
+     * @return 这一层生成的中间对象，顺序与源对象一致
+     */
+    private List<String> composeLevel(String bucket, List<String> sources, int batchSize, String namePrefix) throws Exception {
+        Semaphore permits = new Semaphore(Math.max(1, uploadProperties.getComposeConcurrency()));
+        List<String> targets = new ArrayList<>();
+        List<CompletableFuture<ObjectWriteResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0, index = 0; i < sources.size(); i += batchSize, index++) {
+                List<String> batch = sources.subList(i, Math.min(i + batchSize, sources.size()));
+                String target = namePrefix + index;
+                targets.add(target);
+                permits.acquire();
+                CompletableFuture<ObjectWriteResponse> future;
+                try {
+                    future = composeBatch(bucket, target, batch);
+                } catch (Exception e) {
+                    permits.release();
+                    throw e;
+                }
+                futures.add(future.whenComplete((r, e) -> permits.release()));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (Exception e) {
+            // 等待已提交的合并结束后再抛出，避免后续重试与之并发写同一个中间对象
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(ex -> null).join();
+            throw e;
+        }
+        return targets;
+    }
+
+    /**
+     * 合并一批源对象；目标对象已存在且由同一批源对象合并而来时直接复用
+     */
+    private CompletableFuture<ObjectWriteResponse> composeBatch(String bucket, String target, List<String> sources) throws Exception {
+        String sourcesDigest = digest(sources);
+        if (isComposedFrom(bucket, target, sourcesDigest)) {
+            log.info("复用已合并的中间对象: {}", target);
+            return CompletableFuture.completedFuture(null);
+        }
+        List<ComposeSource> composeSources = sources.stream().map(partName -> ComposeSource.builder()
+                        .bucket(bucket)
                         .object(partName)
                         .build())
                 .toList();
-        // 下面采用了直接合并；也可以分小批合并，再合并中间文件
-        minioClient.composeObject(ComposeObjectArgs.builder()
-                .bucket(minioProperties.getDefaultBucket())
-                .object(mergeFileName)
+        return minioAsyncClient.composeObject(ComposeObjectArgs.builder()
+                .bucket(bucket)
+                .object(target)
                 .sources(composeSources)
+                .userMetadata(Map.of(COMPOSE_SOURCES_META, sourcesDigest))
                 .build());
-        log.info("合并完成");
-        // 清理分片文件
-        List<DeleteObject> deleteObjects = partFileNames.stream().map(DeleteObject::new).toList();
-        minioClient.removeObjects(RemoveObjectsArgs.builder()
-                .bucket(minioProperties.getDefaultBucket())
-                .objects(deleteObjects)
-                .build());
-        // 合并后的文件URL
-        String presignedObjectUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                .bucket(minioProperties.getDefaultBucket())
-                .object(mergeFileName)
-                .method(Method.GET)
-                .expiry(minioProperties.getPresignedUrlExpiry(), TimeUnit.MINUTES)
-                .build());
-        log.info("获取合并后的文件URL: {}", presignedObjectUrl);
     }
 
+    private boolean isComposedFrom(String bucket, String object, String sourcesDigest) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(object)
+                    .build());
+            return stat.userMetadata().entrySet().stream()
+                    .anyMatch(e -> COMPOSE_SOURCES_META.equalsIgnoreCase(e.getKey())
+                            && sourcesDigest.equals(e.getValue()));
+        } catch (ErrorResponseException e) {
+            // 对象不存在
+            return false;
+        } catch (Exception e) {
+            log.warn("查询中间对象失败，重新合并: object={}, error={}", object, e.getMessage());
+            return false;
+        }
+    }
 
+    /**
+     * 批量删除对象；removeObjects返回的结果是惰性的，必须遍历才会真正发出删除请求
+     */
+    public void removeObjects(String bucket, List<String> objectNames) {
+        List<DeleteObject> deleteObjects = objectNames.stream().map(DeleteObject::new).toList();
+        Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                .bucket(bucket)
+                .objects(deleteObjects)
+                .build());
+        int failed = 0;
+        for (Result<DeleteError> result : results) {
+            try {
+                DeleteError error = result.get();
+                failed++;
+                log.warn("删除对象失败: object={}, error={}", error.objectName(), error.message());
+            } catch (Exception e) {
+                failed++;
+                log.warn("删除对象失败: {}", e.getMessage());
+            }
+        }
+        log.info("清理对象完成: total={}, failed={}", objectNames.size(), failed);
+    }
 
+    private static String digest(List<String> names) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (String name : names) {
+                md.update(name.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(md.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
 }
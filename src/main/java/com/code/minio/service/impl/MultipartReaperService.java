@@ -0,0 +1,373 @@
+package com.code.minio.service.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.code.minio.config.MinioProperties;
+import com.code.minio.config.ReaperProperties;
+import com.code.minio.controller.MinioChunkUploadController;
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片上传清理
+ * 会话在Redis中过期后，MinIO中未完成的分片上传和已上传的分片不会自动删除。
+ * 定时任务逐页列出各桶的分片上传，中止初始化时间超过阈值且两套分片上传接口都已没有会话的上传；
+ * 同时删除分层合并遗留在 .compose/ 下的过期中间对象。
+ * 多个节点通过Redis租约保证同一时间只有一个节点在清理，所有请求经过限速
+ */
+@Service
+@Slf4j
+public class MultipartReaperService {
+
+    public static final String LEASE_KEY = "minio:reaper:lease";
+
+    private static final DefaultRedisScript<Long> RENEW_LEASE_SCRIPT =
+            script("scripts/reaper_lease_renew.lua");
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT =
+            script("scripts/reaper_lease_release.lua");
+
+    @Autowired
+    private AmazonS3 amazonS3;
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MinioProperties minioProperties;
+
+    @Autowired
+    private ReaperProperties reaperProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** 本节点的租约持有者标识 */
+    private final String owner = UUID.randomUUID().toString();
+
+    private Timer runTimer;
+
+    private Counter abortedUploads;
+
+    private Counter deletedObjects;
+
+    private Counter multipartBytes;
+
+    private Counter composeBytes;
+
+    @PostConstruct
+    public void init() {
+        runTimer = Timer.builder("minio.reaper.run")
+                .description("一次清理的耗时")
+                .register(meterRegistry);
+        abortedUploads = Counter.builder("minio.reaper.uploads.aborted")
+                .description("中止的过期分片上传数")
+                .register(meterRegistry);
+        deletedObjects = Counter.builder("minio.reaper.objects.deleted")
+                .description("删除的合并中间对象数")
+                .register(meterRegistry);
+        multipartBytes = Counter.builder("minio.reaper.bytes.reclaimed")
+                .tag("source", "multipart")
+                .description("清理释放的存储字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        composeBytes = Counter.builder("minio.reaper.bytes.reclaimed")
+                .tag("source", "compose")
+                .description("清理释放的存储字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "#{@reaperProperties.initialDelay.toMillis()}",
+            fixedDelayString = "#{@reaperProperties.interval.toMillis()}")
+    public void scheduledReap() {
+        if (!reaperProperties.isEnabled()) {
+            return;
+        }
+        try {
+            reap();
+        } catch (Exception e) {
+            log.error("分片上传清理失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 执行一次清理
+     * @return 清理统计；未取得租约时返回null
+     */
+    public Map<String, Object> reap() {
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(LEASE_KEY, owner, reaperProperties.getLeaseTtl());
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.debug("清理租约由其他节点持有，跳过本次清理");
+            return null;
+        }
+        long start = System.nanoTime();
+        Sweep sweep = new Sweep(RateLimiter.create(Math.max(0.1, reaperProperties.getMaxRequestsPerSecond())));
+        try {
+            for (String bucket : buckets()) {
+                if (!reapUploads(bucket, sweep) || !reapComposeTemp(bucket, sweep)) {
+                    log.warn("清理租约已失效，停止本次清理");
+                    break;
+                }
+            }
+        } finally {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(LEASE_KEY), owner);
+            runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        log.info("分片上传清理完成: scanned={}, aborted={}, abortedBytes={}, composeDeleted={}, composeBytes={}",
+                sweep.scannedUploads, sweep.abortedUploads, sweep.abortedBytes, sweep.deletedObjects, sweep.deletedBytes);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scannedUploads", sweep.scannedUploads);
+        result.put("abortedUploads", sweep.abortedUploads);
+        result.put("abortedBytes", sweep.abortedBytes);
+        result.put("deletedObjects", sweep.deletedObjects);
+        result.put("deletedBytes", sweep.deletedBytes);
+        return result;
+    }
+
+    /**
+     * 逐页列出分片上传，中止过期且没有会话的上传
+     * @return 租约是否仍然有效
+     */
+    private boolean reapUploads(String bucket, Sweep sweep) {
+        Date cutoff = new Date(System.currentTimeMillis() - reaperProperties.getStaleAfter().toMillis());
+        ListMultipartUploadsRequest request = new ListMultipartUploadsRequest(bucket)
+                .withMaxUploads(reaperProperties.getPageSize());
+        MultipartUploadListing listing;
+        do {
+            if (!renewLease()) {
+                return false;
+            }
+            sweep.limiter.acquire();
+            listing = amazonS3.listMultipartUploads(request);
+            List<MultipartUpload> candidates = new ArrayList<>();
+            for (MultipartUpload upload : listing.getMultipartUploads()) {
+                sweep.scannedUploads++;
+                if (upload.getInitiated() != null && upload.getInitiated().before(cutoff)) {
+                    candidates.add(upload);
+                }
+            }
+            List<Boolean> live = hasSession(candidates);
+            for (int i = 0; i < candidates.size(); i++) {
+                if (!live.get(i)) {
+                    abort(bucket, candidates.get(i), sweep);
+                }
+            }
+            request.setKeyMarker(listing.getNextKeyMarker());
+            request.setUploadIdMarker(listing.getNextUploadIdMarker());
+        } while (listing.isTruncated());
+        return true;
+    }
+
+    /**
+     * 一次管道查询各上传在两套分片上传接口中是否还有会话
+     */
+    private List<Boolean> hasSession(List<MultipartUpload> uploads) {
+        if (uploads.isEmpty()) {
+            return List.of();
+        }
+        List<Object> counts = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (MultipartUpload upload : uploads) {
+                connection.keyCommands().exists(
+                        bytes(UploadSessionStore.SESSION_KEY_PREFIX + upload.getUploadId()),
+                        bytes(String.format(MinioChunkUploadController.SESSION_KEY, upload.getUploadId())));
+            }
+            return null;
+        });
+        List<Boolean> live = new ArrayList<>(counts.size());
+        for (Object count : counts) {
+            // 结果无法识别时按有会话处理，宁可少清理
+            live.add(!(count instanceof Number n) || n.longValue() > 0);
+        }
+        return live;
+    }
+
+    private void abort(String bucket, MultipartUpload upload, Sweep sweep) {
+        try {
+            long size = uploadedBytes(bucket, upload, sweep);
+            sweep.limiter.acquire();
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, upload.getKey(), upload.getUploadId()));
+            sweep.abortedUploads++;
+            sweep.abortedBytes += size;
+            abortedUploads.increment();
+            multipartBytes.increment(size);
+            log.info("中止过期分片上传: bucket={}, key={}, uploadId={}, initiated={}, size={}",
+                    bucket, upload.getKey(), upload.getUploadId(), upload.getInitiated(), size);
+        } catch (AmazonS3Exception e) {
+            // 上传已被完成或中止
+            log.warn("中止分片上传失败: key={}, uploadId={}, error={}", upload.getKey(), upload.getUploadId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 已上传分片的总大小，用于统计释放的字节数
+     */
+    private long uploadedBytes(String bucket, MultipartUpload upload, Sweep sweep) {
+        ListPartsRequest request = new ListPartsRequest(bucket, upload.getKey(), upload.getUploadId());
+        long size = 0;
+        PartListing listing;
+        do {
+            sweep.limiter.acquire();
+            listing = amazonS3.listParts(request);
+            for (PartSummary part : listing.getParts()) {
+                size += part.getSize();
+            }
+            request.setPartNumberMarker(listing.getNextPartNumberMarker());
+        } while (listing.isTruncated());
+        return size;
+    }
+
+    /**
+     * 删除最后修改时间超过阈值的合并中间对象，正常合并的中间对象在合并完成后即被删除，留下的都是失败或中断的合并
+     * @return 租约是否仍然有效
+     */
+    private boolean reapComposeTemp(String bucket, Sweep sweep) {
+        ZonedDateTime cutoff = ZonedDateTime.now().minus(reaperProperties.getComposeTempMaxAge());
+        Iterable<Result<Item>> items = minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(MinioChunkUploadService.COMPOSE_TEMP_PREFIX)
+                .recursive(true)
+                .maxKeys(reaperProperties.getPageSize())
+                .build());
+        Map<String, Long> batch = new HashMap<>();
+        long scanned = 0;
+        for (Result<Item> result : items) {
+            // 每列出一页限速并续期一次租约
+            if (scanned++ % reaperProperties.getPageSize() == 0) {
+                if (!renewLease()) {
+                    return false;
+                }
+                sweep.limiter.acquire();
+            }
+            Item item;
+            try {
+                item = result.get();
+            } catch (Exception e) {
+                throw new RuntimeException("列出合并中间对象失败: " + e.getMessage(), e);
+            }
+            if (item.isDir() || item.lastModified() == null || !item.lastModified().isBefore(cutoff)) {
+                continue;
+            }
+            batch.put(item.objectName(), item.size());
+            if (batch.size() >= reaperProperties.getPageSize()) {
+                removeObjects(bucket, batch, sweep);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            if (!renewLease()) {
+                return false;
+            }
+            removeObjects(bucket, batch, sweep);
+        }
+        return true;
+    }
+
+    /**
+     * 批量删除对象，只统计删除成功的对象大小；removeObjects返回的结果是惰性的，必须遍历才会真正发出删除请求
+     */
+    private void removeObjects(String bucket, Map<String, Long> objects, Sweep sweep) {
+        sweep.limiter.acquire();
+        List<DeleteObject> deleteObjects = objects.keySet().stream().map(DeleteObject::new).toList();
+        Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                .bucket(bucket)
+                .objects(deleteObjects)
+                .build());
+        Map<String, Long> deleted = new HashMap<>(objects);
+        for (Result<DeleteError> result : results) {
+            try {
+                DeleteError error = result.get();
+                deleted.remove(error.objectName());
+                log.warn("删除合并中间对象失败: object={}, error={}", error.objectName(), error.message());
+            } catch (Exception e) {
+                log.warn("删除合并中间对象失败: {}", e.getMessage());
+                return;
+            }
+        }
+        long size = deleted.values().stream().mapToLong(Long::longValue).sum();
+        sweep.deletedObjects += deleted.size();
+        sweep.deletedBytes += size;
+        deletedObjects.increment(deleted.size());
+        composeBytes.increment(size);
+        log.info("删除过期合并中间对象: bucket={}, count={}, size={}", bucket, deleted.size(), size);
+    }
+
+    private boolean renewLease() {
+        Long renewed = stringRedisTemplate.execute(RENEW_LEASE_SCRIPT, List.of(LEASE_KEY),
+                owner, String.valueOf(reaperProperties.getLeaseTtl().toMillis()));
+        return renewed != null && renewed > 0;
+    }
+
+    private List<String> buckets() {
+        return reaperProperties.getBuckets().isEmpty()
+                ? List.of(minioProperties.getDefaultBucket()) : reaperProperties.getBuckets();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    /**
+     * 一次清理的限速器与统计
+     */
+    private static final class Sweep {
+        private final RateLimiter limiter;
+        private long scannedUploads;
+        private long abortedUploads;
+        private long abortedBytes;
+        private long deletedObjects;
+        private long deletedBytes;
+
+        private Sweep(RateLimiter limiter) {
+            this.limiter = limiter;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.CacheProperties;
+import com.code.minio.config.MinioProperties;
+import com.code.minio.util.CompressionCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 两级热点对象读缓存
+ * 小对象缓存在堆内存层，中等对象写入本地磁盘并以内存映射方式读取；两层都由Caffeine按字节预算管理，
+ * 淘汰和准入采用W-TinyLFU，偶发访问的对象不会挤掉热点对象。
+ * 未命中的对象在admissionWindow内第二次未命中时才由后台线程读入缓存，请求本身直接流式返回；
+ * 条目超过revalidateAfter后用statObject比较ETag重新验证，未变化时不传输对象内容
+ */
+@Service
+@Slf4j
+public class ObjectCacheService {
+
+    private static final String DISK_FILE_SUFFIX = ".obj";
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private MinioProperties minioProperties;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cacheFillExecutor;
+
+    private Cache<String, CachedObject> heapTier;
+
+    private Cache<String, CachedObject> diskTier;
+
+    private Path diskDir;
+
+    /**
+     * 最近未命中过一次的对象，第二次未命中时才读入缓存
+     */
+    private Cache<String, Boolean> missedOnce;
+
+    /**
+     * 正在后台读入的对象，避免同一对象重复读取
+     */
+    private final Set<String> filling = ConcurrentHashMap.newKeySet();
+
+    private Counter notModified;
+
+    private Counter modified;
+
+    @PostConstruct
+    public void init() throws IOException {
+        diskDir = cacheProperties.getDiskDir() == null || cacheProperties.getDiskDir().isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "minio-object-cache")
+                : Paths.get(cacheProperties.getDiskDir());
+        Files.createDirectories(diskDir);
+        // 索引只在内存中，上次运行留下的文件无法复用
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDir, "*" + DISK_FILE_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        heapTier = Caffeine.newBuilder()
+                .maximumWeight(cacheProperties.getHeapBudget())
+                .weigher((String key, CachedObject value) -> (int) value.getSize())
+                .recordStats()
+                .build();
+        diskTier = Caffeine.newBuilder()
+                .maximumWeight(cacheProperties.getDiskBudget())
+                .weigher((String key, CachedObject value) -> (int) value.getSize())
+                // 条目被淘汰或替换时删除对应的文件；已映射的内容在文件删除后仍可读到映射释放
+                .removalListener((String key, CachedObject value, RemovalCause cause) -> {
+                    if (value != null) {
+                        value.deleteFile();
+                    }
+                })
+                .recordStats()
+                .build();
+        missedOnce = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getAdmissionTrackerSize())
+                .expireAfterWrite(cacheProperties.getAdmissionWindow())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, heapTier, "objectCache", "tier", "heap");
+        CaffeineCacheMetrics.monitor(meterRegistry, diskTier, "objectCache", "tier", "disk");
+        notModified = Counter.builder("minio.object.cache.revalidations").tag("result", "not_modified").register(meterRegistry);
+        modified = Counter.builder("minio.object.cache.revalidations").tag("result", "modified").register(meterRegistry);
+    }
+
+    /**
+     * 查找缓存的对象；条目已过验证期时先向MinIO重新验证
+     * @return 缓存的对象，未命中、对象已删除或验证失败时返回null
+     */
+    public CachedObject get(String objectName) {
+        if (!cacheProperties.isEnabled()) {
+            return null;
+        }
+        CachedObject cached = heapTier.getIfPresent(objectName);
+        if (cached == null) {
+            cached = diskTier.getIfPresent(objectName);
+        }
+        if (cached == null || isFresh(cached)) {
+            return cached;
+        }
+        // 同一条目同时只验证一次，其余请求等待验证结果
+        synchronized (cached) {
+            if (isFresh(cached)) {
+                return cached;
+            }
+            return revalidate(objectName, cached);
+        }
+    }
+
+    /**
+     * 未命中时登记访问，admissionWindow内第二次未命中且对象不超过磁盘层上限时提交后台读入；
+     * 后台线程池已满时放弃本次读入
+     */
+    public void admitAsync(String objectName, StatObjectResponse stat) {
+        if (!cacheProperties.isEnabled() || stat.size() > cacheProperties.getDiskMaxObjectSize()
+                || CompressionCodec.of(stat) != null) {
+            return;
+        }
+        if (missedOnce.asMap().putIfAbsent(objectName, Boolean.TRUE) == null) {
+            return;
+        }
+        if (!filling.add(objectName)) {
+            return;
+        }
+        missedOnce.invalidate(objectName);
+        try {
+            cacheFillExecutor.execute(() -> {
+                try {
+                    fill(objectName, stat);
+                } finally {
+                    filling.remove(objectName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            filling.remove(objectName);
+            log.debug("缓存读入线程池已满，跳过: object={}", objectName);
+        }
+    }
+
+    /**
+     * 按元数据读入对象内容，读取失败时返回null
+     */
+    CachedObject fill(String objectName, StatObjectResponse stat) {
+        try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(minioProperties.getDefaultBucket())
+                .object(objectName)
+                .matchETag(stat.etag())
+                .build())) {
+            return store(objectName, stat, response);
+        } catch (Exception e) {
+            log.warn("读入缓存失败: object={}, error={}", objectName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 对象被覆盖或删除时主动失效
+     */
+    public void invalidate(String objectName) {
+        heapTier.invalidate(objectName);
+        diskTier.invalidate(objectName);
+    }
+
+    private boolean isFresh(CachedObject cached) {
+        return System.nanoTime() - cached.validatedAtNanos < cacheProperties.getRevalidateAfter().toNanos();
+    }
+
+    private CachedObject revalidate(String objectName, CachedObject cached) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(minioProperties.getDefaultBucket())
+                    .object(objectName)
+                    .build());
+            if (cached.getEtag().equals(stat.etag())) {
+                notModified.increment();
+                cached.validatedAtNanos = System.nanoTime();
+                return cached;
+            }
+            // ETag不匹配，对象已更新，丢弃旧内容，由调用方按未命中处理
+            modified.increment();
+            invalidate(objectName);
+        } catch (ErrorResponseException e) {
+            String code = e.errorResponse().code();
+            if ("NoSuchKey".equals(code) || "NoSuchObject".equals(code)) {
+                invalidate(objectName);
+                return null;
+            }
+            log.warn("缓存验证失败: object={}, error={}", objectName, e.getMessage());
+        } catch (Exception e) {
+            log.warn("缓存验证失败: object={}, error={}", objectName, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 按对象大小写入堆内存层或磁盘层，并从另一层移除旧版本
+     */
+    private CachedObject store(String objectName, StatObjectResponse stat, InputStream content) throws IOException {
+        // 压缩存储的对象需要解压后返回，不进入缓存
+        if (CompressionCodec.of(stat) != null) {
+            return null;
+        }
+        long size = stat.size();
+        if (size <= cacheProperties.getHeapMaxObjectSize()) {
+            byte[] data = content.readAllBytes();
+            if (data.length != size) {
+                throw new IOException("对象长度不一致: expected=" + size + ", actual=" + data.length);
+            }
+            CachedObject cached = new CachedObject(stat, ByteBuffer.wrap(data), null);
+            heapTier.put(objectName, cached);
+            diskTier.invalidate(objectName);
+            return cached;
+        }
+        if (size <= cacheProperties.getDiskMaxObjectSize()) {
+            Path file = diskDir.resolve(UUID.randomUUID() + DISK_FILE_SUFFIX);
+            try {
+                long copied = Files.copy(content, file);
+                if (copied != size) {
+                    throw new IOException("对象长度不一致: expected=" + size + ", actual=" + copied);
+                }
+                ByteBuffer mapped;
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+                CachedObject cached = new CachedObject(stat, mapped, file);
+                diskTier.put(objectName, cached);
+                heapTier.invalidate(objectName);
+                return cached;
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 缓存的对象：元数据和内容缓冲区（堆内存或内存映射文件），读取时使用副本，不修改缓冲区本身
+     */
+    public static final class CachedObject {
+        private final String etag;
+        private final long size;
+        private final String contentType;
+        private final ZonedDateTime lastModified;
+        private final ByteBuffer content;
+        private final Path file;
+        private volatile long validatedAtNanos = System.nanoTime();
+
+        private CachedObject(StatObjectResponse stat, ByteBuffer content, Path file) {
+            this.etag = stat.etag();
+            this.size = stat.size();
+            this.contentType = stat.contentType();
+            this.lastModified = stat.lastModified();
+            this.content = content;
+            this.file = file;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public ZonedDateTime getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * 把内容的[offset, offset + length)范围写到输出流
+         */
+        public void writeTo(OutputStream outputStream, long offset, long length) throws IOException {
+            ByteBuffer slice = content.duplicate();
+            slice.position((int) offset).limit((int) (offset + length));
+            if (slice.hasArray()) {
+                outputStream.write(slice.array(), slice.arrayOffset() + slice.position(), slice.remaining());
+            } else {
+                byte[] chunk = new byte[(int) Math.min(64 * 1024, Math.max(1, length))];
+                while (slice.hasRemaining()) {
+                    int n = Math.min(chunk.length, slice.remaining());
+                    slice.get(chunk, 0, n);
+                    outputStream.write(chunk, 0, n);
+                }
+            }
+            outputStream.flush();
+        }
+
+        private void deleteFile() {
+            if (file == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("删除缓存文件失败: file={}, error={}", file, e.getMessage());
+            }
+        }
+    }
+}
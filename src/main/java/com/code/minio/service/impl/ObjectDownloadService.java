@@ -0,0 +1,100 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.MinioProperties;
+import com.code.minio.util.CompressionCodec;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 代理下载：查询对象元数据，按字节范围把对象内容流式写到输出流
+ */
+@Service
+@Slf4j
+public class ObjectDownloadService {
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private MinioProperties minioProperties;
+
+    /**
+     * 查询对象元数据，对象不存在时返回null
+     */
+    public StatObjectResponse stat(String objectName) throws Exception {
+        try {
+            return minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(minioProperties.getDefaultBucket())
+                    .object(objectName)
+                    .build());
+        } catch (ErrorResponseException e) {
+            String code = e.errorResponse().code();
+            if ("NoSuchKey".equals(code) || "NoSuchObject".equals(code)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 把对象的[offset, offset + length)范围经缓冲区写到输出流，不在内存中缓存整个对象
+     * @param etag 下载开始前查询到的ETag，对象在此期间被覆盖时MinIO返回412，避免拼接出新旧混合的内容
+     */
+    public void copyRange(String objectName, String etag, long offset, long length,
+                          ByteBuffer buffer, OutputStream outputStream) throws Exception {
+        if (length <= 0) {
+            return;
+        }
+        byte[] bytes = buffer.array();
+        long remaining = length;
+        try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(minioProperties.getDefaultBucket())
+                .object(objectName)
+                .offset(offset)
+                .length(length)
+                .matchETag(etag)
+                .build())) {
+            while (remaining > 0) {
+                int n = response.read(bytes, 0, (int) Math.min(bytes.length, remaining));
+                if (n < 0) {
+                    throw new IOException("对象内容提前结束: object=" + objectName + ", remaining=" + remaining);
+                }
+                outputStream.write(bytes, 0, n);
+                remaining -= n;
+            }
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * 读取压缩存储的对象，解压后经缓冲区写到输出流
+     */
+    public void copyDecompressed(String objectName, String etag, CompressionCodec codec,
+                                 ByteBuffer buffer, OutputStream outputStream) throws Exception {
+        byte[] bytes = buffer.array();
+        try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(minioProperties.getDefaultBucket())
+                .object(objectName)
+                .matchETag(etag)
+                .build());
+             InputStream content = codec.decompress(response)) {
+            int n;
+            while ((n = content.read(bytes)) >= 0) {
+                outputStream.write(bytes, 0, n);
+            }
+            outputStream.flush();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.ListProperties;
+import com.code.minio.config.MinioProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 对象列表
+ * 结果以NDJSON逐行写出，每行一个对象，最后一行是汇总和continuationToken；
+ * 按日期范围查询时，多个日期前缀由列表线程池并发预取到各自的有界队列，再按前缀顺序依次输出。
+ * 对象名为 bizType/yyyyMMdd/...，不同日期前缀的键互不重叠且按日期有序，所以按前缀顺序拼接就是按键的全局有序合并，
+ * 内存占用与结果总数无关。
+ * 每次列表在返回响应前按同时预取的前缀数预留列表线程，预留不到时直接拒绝，不会在200响应中途才报错
+ */
+@Service
+@Slf4j
+public class ObjectListingService {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    /** 队列中表示前缀已列完的标记 */
+    private static final Object END = new Object();
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private MinioProperties minioProperties;
+
+    @Autowired
+    private ListProperties listProperties;
+
+    @Autowired
+    private ThreadPoolTaskExecutor listExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** 可预留的列表线程数，与列表线程池大小相同 */
+    private Semaphore threadPermits;
+
+    @PostConstruct
+    public void init() {
+        threadPermits = new Semaphore(Math.max(1, listProperties.getThreads()));
+    }
+
+    /**
+     * 为一次列表预留线程，每个同时预取的前缀占一个；线程不足时返回null
+     * 预留在列表结束后通过Reservation.close()释放，重复释放无影响
+     */
+    public Reservation reserve(List<String> prefixes) {
+        int needed = Math.max(1, Math.min(Math.max(1, listProperties.getPrefixConcurrency()), prefixes.size()));
+        return threadPermits.tryAcquire(needed) ? new Reservation(needed) : null;
+    }
+
+    public final class Reservation implements AutoCloseable {
+        private final int permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(int permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                threadPermits.release(permits);
+            }
+        }
+    }
+
+    /**
+     * 确定要列出的前缀：给出日期范围时每天一个前缀，否则为 bizType/
+     */
+    public List<String> prefixes(String bizType, LocalDate from, LocalDate to) {
+        List<String> prefixes = new ArrayList<>();
+        if (from == null && to == null) {
+            prefixes.add(bizType + "/");
+            return prefixes;
+        }
+        LocalDate start = from != null ? from : to;
+        LocalDate end = to != null ? to : from;
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("结束日期早于开始日期");
+        }
+        if (start.plusDays(listProperties.getMaxDays()).isBefore(end.plusDays(1))) {
+            throw new IllegalArgumentException("日期范围不能超过" + listProperties.getMaxDays() + "天");
+        }
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            prefixes.add(bizType + "/" + date.format(DATE) + "/");
+        }
+        return prefixes;
+    }
+
+    public int limit(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return listProperties.getDefaultLimit();
+        }
+        return Math.min(requested, listProperties.getMaxLimit());
+    }
+
+    public static String encodeToken(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decodeToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("continuationToken无效");
+        }
+    }
+
+    /**
+     * 按键的顺序把前缀下的对象写成NDJSON
+     * 每行 {"key","size","etag","lastModified"}，最后一行 {"count","truncated","nextContinuationToken"}；
+     * 列出过程中出错时最后一行为 {"error"}
+     *
+     * @param prefixes 按键顺序排列、互不重叠的前缀
+     * @param startAfter 上一页最后一个键，为空时从头开始
+     * @param limit 本次最多输出的条目数
+     */
+    public void write(List<String> prefixes, String startAfter, int limit, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        int count = 0;
+        String lastKey = null;
+        boolean truncated = false;
+        try (OrderedListing listing = new OrderedListing(prefixes, startAfter)) {
+            Item item;
+            while ((item = listing.next()) != null) {
+                if (count == limit) {
+                    truncated = true;
+                    break;
+                }
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("key", item.objectName());
+                line.put("size", item.size());
+                line.put("etag", item.etag() == null ? null : item.etag().replace("\"", ""));
+                line.put("lastModified", item.lastModified().toInstant().toString());
+                writeLine(out, line);
+                lastKey = item.objectName();
+                count++;
+            }
+        } catch (ListingException e) {
+            log.error("列出对象失败: prefixes={}, error={}", prefixes.size(), e.getMessage(), e);
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("error", e.getMessage());
+            line.put("count", count);
+            // 已输出的条目仍然有效，可从最后一个键继续
+            line.put("nextContinuationToken", lastKey != null ? encodeToken(lastKey) : null);
+            writeLine(out, line);
+            return;
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("truncated", truncated);
+        summary.put("nextContinuationToken", truncated ? encodeToken(lastKey) : null);
+        writeLine(out, summary);
+        log.debug("列出对象完成: prefixes={}, count={}, truncated={}, elapsed={}ms",
+                prefixes.size(), count, truncated, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void writeLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+    }
+
+    static class ListingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ListingException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * 按前缀顺序输出的列表游标，始终保持最多prefixConcurrency个前缀在后台预取
+     */
+    private class OrderedListing implements AutoCloseable {
+        private final Deque<String> waiting = new ArrayDeque<>();
+        private final Deque<PrefixFetch> window = new ArrayDeque<>();
+        private final String startAfter;
+        private volatile boolean closed;
+
+        OrderedListing(List<String> prefixes, String startAfter) {
+            this.startAfter = startAfter;
+            for (String prefix : prefixes) {
+                // 续传时跳过已经完整列过的前缀
+                if (startAfter != null && startAfter.compareTo(prefix) > 0 && !startAfter.startsWith(prefix)) {
+                    continue;
+                }
+                waiting.add(prefix);
+            }
+            fill();
+        }
+
+        Item next() throws IOException {
+            while (!window.isEmpty()) {
+                PrefixFetch head = window.peekFirst();
+                Object element;
+                try {
+                    element = head.queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("列出对象被中断", e);
+                }
+                if (element instanceof Item item) {
+                    return item;
+                }
+                window.pollFirst();
+                if (element instanceof Throwable error) {
+                    throw new ListingException("列出前缀失败: " + head.prefix + ", " + error.getMessage(), error);
+                }
+                fill();
+            }
+            return null;
+        }
+
+        private void fill() {
+            while (window.size() < Math.max(1, listProperties.getPrefixConcurrency()) && !waiting.isEmpty()) {
+                String prefix = waiting.pollFirst();
+                String after = startAfter != null && startAfter.startsWith(prefix) ? startAfter : null;
+                PrefixFetch fetch = new PrefixFetch(prefix);
+                try {
+                    fetch.future = listExecutor.submit(() -> fetch.run(after));
+                } catch (RuntimeException e) {
+                    // 线程已预留，只有前一次列表的线程尚未退出且队列也已满时才会出现
+                    close();
+                    throw new ListingException("列表线程池繁忙", e);
+                }
+                window.addLast(fetch);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            for (PrefixFetch fetch : window) {
+                fetch.future.cancel(true);
+            }
+        }
+
+        /**
+         * 单个前缀的后台列表任务，结果放入有界队列，队列满时等待消费，形成背压
+         */
+        private class PrefixFetch {
+            private final String prefix;
+            private final BlockingQueue<Object> queue =
+                    new ArrayBlockingQueue<>(Math.max(1, listProperties.getPrefetchCapacity()));
+            private Future<?> future;
+
+            PrefixFetch(String prefix) {
+                this.prefix = prefix;
+            }
+
+            void run(String after) {
+                try {
+                    ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                            .bucket(minioProperties.getDefaultBucket())
+                            .prefix(prefix)
+                            .recursive(true);
+                    if (after != null) {
+                        args.startAfter(after);
+                    }
+                    for (Result<Item> result : minioClient.listObjects(args.build())) {
+                        if (!offer(result.get())) {
+                            return;
+                        }
+                    }
+                    offer(END);
+                } catch (Exception e) {
+                    // 消费端关闭后取消任务引起的异常会在offer中直接丢弃
+                    offer(e);
+                }
+            }
+
+            /**
+             * 队列满时等待，消费端关闭后返回false
+             */
+            private boolean offer(Object element) {
+                try {
+                    while (!closed) {
+                        if (queue.offer(element, 1, TimeUnit.SECONDS)) {
+                            return true;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.PresignProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预签名URL缓存
+ * 同一对象、方法和有效期的URL在有效期的前一部分时间内直接复用，避免每次请求重复计算SigV4签名；
+ * 缓存条目按URL有效期的比例过期，返回的URL总能保留足够的剩余有效期
+ */
+@Service
+@Slf4j
+public class PresignedUrlService {
+
+    /** MinIO预签名URL的最长有效期：7天 */
+    public static final int MAX_EXPIRY_SECONDS = 7 * 24 * 3600;
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private PresignProperties presignProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<PresignKey, String> cache;
+
+    private Timer signTimer;
+
+    record PresignKey(String bucket, String object, Method method, int expirySeconds) {
+    }
+
+    @PostConstruct
+    public void init() {
+        double fraction = Math.min(1, Math.max(0, presignProperties.getLifetimeFraction()));
+        cache = Caffeine.newBuilder()
+                .maximumSize(presignProperties.getCacheSize())
+                .expireAfter(new Expiry<PresignKey, String>() {
+                    @Override
+                    public long expireAfterCreate(PresignKey key, String url, long currentTime) {
+                        return TimeUnit.SECONDS.toNanos((long) (key.expirySeconds() * fraction));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(PresignKey key, String url, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, url, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(PresignKey key, String url, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "presignedUrl");
+        signTimer = Timer.builder("minio.presign.sign")
+                .description("未命中缓存时计算预签名URL的耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取预签名URL，命中缓存时直接返回
+     */
+    public String presign(String bucket, String object, Method method, int expiry, TimeUnit unit) {
+        int expirySeconds = (int) Math.min(MAX_EXPIRY_SECONDS, unit.toSeconds(expiry));
+        return cache.get(new PresignKey(bucket, object, method, expirySeconds), this::sign);
+    }
+
+    /**
+     * 批量获取预签名URL，返回对象名到URL的映射，顺序与请求一致
+     */
+    public Map<String, String> presignBatch(String bucket, List<String> objects, Method method, int expirySeconds) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String object : objects) {
+            urls.put(object, presign(bucket, object, method, expirySeconds, TimeUnit.SECONDS));
+        }
+        return urls;
+    }
+
+    private String sign(PresignKey key) {
+        long start = System.nanoTime();
+        try {
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .bucket(key.bucket())
+                    .object(key.object())
+                    .method(key.method())
+                    .expiry(key.expirySeconds(), TimeUnit.SECONDS)
+                    .build());
+        } catch (Exception e) {
+            log.error("生成预签名URL失败: object={}, error={}", key.object(), e.getMessage());
+            throw new RuntimeException("生成预签名URL失败", e);
+        } finally {
+            signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
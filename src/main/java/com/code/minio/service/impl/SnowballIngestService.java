@@ -0,0 +1,276 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.MinioProperties;
+import com.code.minio.config.SnowballProperties;
+import com.code.minio.util.TarStreamReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.SnowballObject;
+import io.minio.UploadSnowballObjectsArgs;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 小文件批量导入
+ * 小文件读入内存攒成批次，按文件数或字节数到达上限时用uploadSnowballObjects一次上传，MinIO收到tar后自动解包；
+ * 超过单文件上限的文件单独putObject。一个批次要么整体成功要么整体失败，结果按文件逐个返回。
+ * 文件数超过上限或tar格式错误时停止读取，已读完的文件照常上传，返回的结果中complete为false
+ */
+@Service
+@Slf4j
+public class SnowballIngestService {
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private MinioProperties minioProperties;
+
+    @Autowired
+    private SnowballProperties snowballProperties;
+
+    @Autowired
+    private ObjectCacheService objectCacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        batchTimer = Timer.builder("minio.snowball.batch")
+                .description("单个snowball批次的上传耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 导入multipart上传的文件列表，对象名为 bizType/日期/原文件名
+     */
+    public Map<String, Object> ingestFiles(List<MultipartFile> files, String bizType) {
+        long start = System.nanoTime();
+        Batcher batcher = new Batcher(bizType);
+        for (MultipartFile file : files) {
+            String name = file.getOriginalFilename();
+            if (!batcher.accept()) {
+                break;
+            }
+            try (InputStream inputStream = file.getInputStream()) {
+                batcher.add(name, inputStream, file.getSize());
+            } catch (IOException e) {
+                batcher.fail(name, file.getSize(), e);
+            }
+        }
+        return batcher.finish(start);
+    }
+
+    /**
+     * 导入tar流，tar内的相对路径保留在 bizType/日期/ 之下
+     * tar格式错误时结果中带有error，此前已读完的文件仍会上传
+     */
+    public Map<String, Object> ingestTar(InputStream tarStream, String bizType) throws IOException {
+        long start = System.nanoTime();
+        Batcher batcher = new Batcher(bizType);
+        TarStreamReader reader = new TarStreamReader(tarStream);
+        try {
+            TarStreamReader.Entry entry;
+            while ((entry = reader.next()) != null && batcher.accept()) {
+                batcher.add(entry.getName(), reader.entryStream(), entry.getSize());
+            }
+        } catch (TarStreamReader.TarFormatException e) {
+            log.warn("tar格式错误，停止导入: bizType={}, error={}", bizType, e.getMessage());
+            batcher.error = "tar格式错误: " + e.getMessage();
+        }
+        return batcher.finish(start);
+    }
+
+    /**
+     * 去掉开头的"/"和"./"，拒绝包含".."的路径
+     */
+    static String sanitize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String path = name.replace('\\', '/');
+        while (path.startsWith("/") || path.startsWith("./")) {
+            path = path.startsWith("/") ? path.substring(1) : path.substring(2);
+        }
+        if (path.isEmpty() || path.endsWith("/")) {
+            return null;
+        }
+        for (String segment : path.split("/")) {
+            if (segment.equals("..")) {
+                return null;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * 一次导入请求的批次状态
+     */
+    private class Batcher {
+        private final String prefix;
+        private final List<Map<String, Object>> results = new ArrayList<>();
+        private final List<Map<String, Object>> pendingResults = new ArrayList<>();
+        private final List<SnowballObject> pending = new ArrayList<>();
+        private long pendingBytes;
+        private int batches;
+        private int count;
+        /** 因文件数超过上限而停止 */
+        private boolean limitReached;
+        /** 请求数据错误，导致停止读取 */
+        private String error;
+
+        Batcher(String bizType) {
+            this.prefix = bizType + "/" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "/";
+        }
+
+        /**
+         * 是否还能接收下一个文件；达到文件数上限时返回false，调用方停止读取，已接收的文件照常上传
+         */
+        boolean accept() {
+            if (count >= snowballProperties.getMaxFiles()) {
+                limitReached = true;
+                return false;
+            }
+            count++;
+            return true;
+        }
+
+        void add(String name, InputStream inputStream, long size) throws IOException {
+            String path = sanitize(name);
+            if (path == null) {
+                fail(name, size, new IllegalArgumentException("文件名无效"));
+                return;
+            }
+            String objectName = prefix + path;
+            if (size > snowballProperties.getMaxFileSize()) {
+                putSingle(name, objectName, inputStream, size);
+                return;
+            }
+            if (pending.size() >= snowballProperties.getBatchMaxFiles()
+                    || pendingBytes + size > snowballProperties.getBatchMaxBytes()) {
+                flush();
+            }
+            byte[] data = inputStream.readNBytes((int) size);
+            if (data.length != size) {
+                throw new IOException("文件内容不完整: " + name);
+            }
+            pending.add(new SnowballObject(objectName, new ByteArrayInputStream(data), size, ZonedDateTime.now()));
+            pendingResults.add(result(name, objectName, size, "batch"));
+            pendingBytes += size;
+        }
+
+        void fail(String name, long size, Exception e) {
+            Map<String, Object> result = result(name, null, size, "none");
+            result.put("status", "failed");
+            result.put("error", e.getMessage());
+            results.add(result);
+        }
+
+        Map<String, Object> finish(long startNanos) {
+            flush();
+            long uploaded = results.stream().filter(r -> "uploaded".equals(r.get("status"))).count();
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            log.info("批量导入完成: prefix={}, files={}, uploaded={}, batches={}, elapsed={}ms",
+                    prefix, results.size(), uploaded, batches, elapsedMillis);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("total", results.size());
+            summary.put("uploaded", uploaded);
+            summary.put("failed", results.size() - uploaded);
+            summary.put("batches", batches);
+            summary.put("elapsedMillis", elapsedMillis);
+            summary.put("complete", !limitReached && error == null);
+            if (limitReached) {
+                summary.put("message", "单次导入文件数超过上限: " + snowballProperties.getMaxFiles() + "，之后的文件未导入");
+            }
+            if (error != null) {
+                summary.put("error", error);
+            }
+            summary.put("files", results);
+            return summary;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batches++;
+            long start = System.nanoTime();
+            String status = "uploaded";
+            String error = null;
+            try {
+                minioClient.uploadSnowballObjects(UploadSnowballObjectsArgs.builder()
+                        .bucket(minioProperties.getDefaultBucket())
+                        .objects(new ArrayList<>(pending))
+                        .compression(snowballProperties.isCompression())
+                        .build());
+            } catch (Exception e) {
+                status = "failed";
+                error = e.getMessage();
+                log.error("snowball批次上传失败: files={}, bytes={}, error={}", pending.size(), pendingBytes, error, e);
+            } finally {
+                batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            for (Map<String, Object> result : pendingResults) {
+                result.put("status", status);
+                result.put("batch", batches);
+                if (error != null) {
+                    result.put("error", error);
+                } else {
+                    objectCacheService.invalidate((String) result.get("objectName"));
+                }
+                results.add(result);
+            }
+            log.debug("snowball批次上传: batch={}, files={}, bytes={}, status={}", batches, pending.size(), pendingBytes, status);
+            pending.clear();
+            pendingResults.clear();
+            pendingBytes = 0;
+        }
+
+        private void putSingle(String name, String objectName, InputStream inputStream, long size) {
+            Map<String, Object> result = result(name, objectName, size, "single");
+            try {
+                minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(minioProperties.getDefaultBucket())
+                        .object(objectName)
+                        .stream(inputStream, size, -1)
+                        .build());
+                objectCacheService.invalidate(objectName);
+                result.put("status", "uploaded");
+            } catch (Exception e) {
+                log.error("大文件单独上传失败: object={}, error={}", objectName, e.getMessage(), e);
+                result.put("status", "failed");
+                result.put("error", e.getMessage());
+            }
+            results.add(result);
+        }
+
+        private Map<String, Object> result(String name, String objectName, long size, String mode) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", name);
+            result.put("objectName", objectName);
+            result.put("size", size);
+            result.put("mode", mode);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.code.minio.service.impl;
+
+import com.amazonaws.services.s3.model.PartSummary;
+import com.code.minio.config.UploadProperties;
+import com.code.minio.model.UploadPartRecord;
+import com.code.minio.model.UploadSessionRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 断点续传
+ * 分页列出MinIO中的全部分片，按分片号生成位图缓存到Redis，再与本服务记录的分片索引合并，
+ * 只返回缺失的分片号及其字节范围；缓存有效期内重复查询不再访问MinIO
+ */
+@Service
+@Slf4j
+public class UploadResumeService {
+
+    private static final String ALL_PARTS_FIELD = "all";
+
+    @Autowired
+    private AwsS3MultipartService multipartService;
+
+    @Autowired
+    private UploadSessionStore uploadSessionStore;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    /**
+     * 获取续传状态
+     * @param fileSize 文件总大小（字节）
+     * @param partSize 分片大小（字节），最后一个分片可以更小
+     * @param refresh 是否忽略缓存重新从MinIO列出分片
+     */
+    public Map<String, Object> getResumeStatus(String uploadId, long fileSize, long partSize, boolean refresh) {
+        if (fileSize <= 0 || partSize <= 0) {
+            throw new IllegalArgumentException("文件大小和分片大小必须大于0");
+        }
+        long totalPartsLong = (fileSize + partSize - 1) / partSize;
+        if (totalPartsLong > AdaptiveChunkSizeService.MAX_PARTS) {
+            throw new IllegalArgumentException("分片数不能超过" + AdaptiveChunkSizeService.MAX_PARTS);
+        }
+        int totalParts = (int) totalPartsLong;
+
+        BitSet uploaded = loadUploadedParts(uploadId, fileSize, partSize, totalParts, refresh);
+
+        // 缺失分片按连续区间合并，返回对应的字节范围
+        List<Map<String, Object>> missingRanges = new ArrayList<>();
+        int missingParts = 0;
+        long missingBytes = 0;
+        int from = uploaded.nextClearBit(1);
+        while (from <= totalParts) {
+            int next = uploaded.nextSetBit(from);
+            int to = (next < 0 || next > totalParts ? totalParts + 1 : next) - 1;
+            long offset = (from - 1) * partSize;
+            long end = Math.min(to * partSize, fileSize);
+            Map<String, Object> range = new HashMap<>();
+            range.put("fromPart", from);
+            range.put("toPart", to);
+            range.put("offset", offset);
+            range.put("length", end - offset);
+            missingRanges.add(range);
+            missingParts += to - from + 1;
+            missingBytes += end - offset;
+            from = uploaded.nextClearBit(to + 1);
+        }
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("uploadId", uploadId);
+        status.put("totalParts", totalParts);
+        status.put("uploadedParts", totalParts - missingParts);
+        status.put("missingParts", missingParts);
+        status.put("uploadedBytes", fileSize - missingBytes);
+        status.put("missingRanges", missingRanges);
+        status.put("complete", missingParts == 0);
+        return status;
+    }
+
+    /**
+     * 已上传的分片号（不校验分片大小）
+     */
+    public List<Integer> getUploadedPartNumbers(String uploadId, boolean refresh) {
+        BitSet uploaded = loadUploadedParts(uploadId, 0, 0, AdaptiveChunkSizeService.MAX_PARTS, refresh);
+        return uploaded.stream().boxed().toList();
+    }
+
+    /**
+     * MinIO分片位图（带缓存）与Redis分片索引的并集
+     */
+    private BitSet loadUploadedParts(String uploadId, long fileSize, long partSize, int totalParts, boolean refresh) {
+        UploadSessionRecord uploadSession = uploadSessionStore.getSession(uploadId);
+        if (uploadSession == null) {
+            throw new RuntimeException("上传会话不存在或已过期");
+        }
+        BitSet uploaded = loadServerParts(uploadId, uploadSession.getObjectKey(), fileSize, partSize, totalParts, refresh);
+        // 通过本服务上传的分片实时记录在Redis中，缓存期间新上传的分片也能被统计到；与MinIO分片使用相同的大小校验
+        for (UploadPartRecord part : uploadSessionStore.getParts(uploadId)) {
+            if (isExpectedPart(part.getPartNumber(), part.getPartSize(), fileSize, partSize, totalParts)) {
+                uploaded.set(part.getPartNumber());
+            }
+        }
+        return uploaded;
+    }
+
+    /**
+     * 分片号在范围内，且指定了分片大小时大小与预期一致；大小不一致的分片视为缺失，需要重传
+     */
+    private static boolean isExpectedPart(int partNumber, long size, long fileSize, long partSize, int totalParts) {
+        if (partNumber > totalParts) {
+            return false;
+        }
+        if (partSize <= 0) {
+            return true;
+        }
+        long expectedSize = partNumber < totalParts ? partSize : fileSize - (totalParts - 1) * partSize;
+        return size == expectedSize;
+    }
+
+    private BitSet loadServerParts(String uploadId, String objectKey, long fileSize, long partSize,
+                                   int totalParts, boolean refresh) {
+        String cacheKey = UploadSessionStore.RESUME_KEY_PREFIX + uploadId;
+        // 校验结果取决于分片大小和文件大小（决定最后一个分片的大小），按两者分别缓存
+        String field = partSize > 0 ? partSize + ":" + fileSize : ALL_PARTS_FIELD;
+        if (!refresh) {
+            Object cached = stringRedisTemplate.opsForHash().get(cacheKey, field);
+            if (cached != null) {
+                return BitSet.valueOf(Base64.getDecoder().decode(cached.toString()));
+            }
+        }
+
+        List<PartSummary> parts = multipartService.listAllParts(objectKey, uploadId);
+        BitSet uploaded = new BitSet(totalParts + 1);
+        for (PartSummary part : parts) {
+            if (isExpectedPart(part.getPartNumber(), part.getSize(), fileSize, partSize, totalParts)) {
+                uploaded.set(part.getPartNumber());
+            }
+        }
+
+        stringRedisTemplate.opsForHash().put(cacheKey, field, Base64.getEncoder().encodeToString(uploaded.toByteArray()));
+        stringRedisTemplate.expire(cacheKey, uploadProperties.getResumeCacheTtl());
+        log.info("刷新分片位图: uploadId={}, listedParts={}, validParts={}", uploadId, parts.size(), uploaded.cardinality());
+        return uploaded;
+    }
+}
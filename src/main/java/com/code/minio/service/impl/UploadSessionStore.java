@@ -0,0 +1,391 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.UploadProperties;
+import com.code.minio.model.UploadClaim;
+import com.code.minio.model.UploadPartRecord;
+import com.code.minio.model.UploadSessionRecord;
+import com.code.minio.util.UploadRecordCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 分片上传会话存储
+ * 会话与分片分别保存在 upload_session:<uploadId> 和 upload_parts:<uploadId> 两个hash中，
+ * 写分片、抢占合并等需要原子性的操作通过Lua脚本一次往返完成。
+ * 会话的objectKey等字段在上传期间不变，读取会话经过本地缓存；会话删除时通过Redis频道通知所有节点失效，
+ * 会话状态（是否正在合并）仍以Redis中的Lua脚本判断为准，不放入本地缓存。
+ * 升级前的会话是字符串、分片是逐个的键，第一次访问时转换为上述格式，升级期间进行中的上传可以继续
+ */
+@Service
+@Slf4j
+public class UploadSessionStore {
+
+    public static final String SESSION_KEY_PREFIX = "upload_session:";
+    public static final String PARTS_KEY_PREFIX = "upload_parts:";
+    public static final String RESUME_KEY_PREFIX = "upload_resume:";
+    public static final String INFLIGHT_KEY_PREFIX = "upload_inflight:";
+    /** 升级前逐个保存分片的键：upload_part:<uploadId>:<分片号> */
+    public static final String LEGACY_PART_KEY_PREFIX = "upload_part:";
+    public static final long SESSION_TTL_SECONDS = 24 * 3600;
+    /** 会话失效通知频道，消息内容为uploadId */
+    public static final String INVALIDATE_CHANNEL = "upload_session:invalidate";
+    private static final long SUBSCRIBE_RETRY_SECONDS = 30;
+
+    private static final RedisSerializer<byte[]> BYTES = RedisSerializer.byteArray();
+
+    private static final String STATE_FIELD = "state";
+    private static final String STATE_ACTIVE = "active";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> RECORD_PART_SCRIPT =
+            script("scripts/upload_record_part.lua", List.class);
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_COMPLETE_SCRIPT =
+            script("scripts/upload_claim_complete.lua", List.class);
+    private static final DefaultRedisScript<Long> BEGIN_PART_SCRIPT =
+            script("scripts/upload_begin_part.lua", Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_CLAIM_SCRIPT =
+            script("scripts/upload_release_claim.lua", Long.class);
+    private static final DefaultRedisScript<Long> MIGRATE_LEGACY_SCRIPT =
+            script("scripts/upload_migrate_legacy.lua", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, UploadSessionRecord> sessionCache;
+
+    private Counter remoteInvalidations;
+
+    private volatile boolean shutdown;
+
+    @PostConstruct
+    public void init() {
+        sessionCache = Caffeine.newBuilder()
+                .maximumSize(uploadProperties.getSessionCacheSize())
+                .expireAfterWrite(uploadProperties.getSessionCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessionCache, "uploadSession");
+        remoteInvalidations = Counter.builder("minio.upload.session.invalidations")
+                .description("收到的会话失效通知数")
+                .register(meterRegistry);
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            sessionCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+            remoteInvalidations.increment();
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 应用就绪后在后台启动订阅，Redis不可用时按间隔重试，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSubscription() {
+        CompletableFuture.runAsync(() -> {
+            if (shutdown) {
+                return;
+            }
+            try {
+                redisMessageListenerContainer.start();
+                log.info("已订阅会话失效通知: channel={}", INVALIDATE_CHANNEL);
+            } catch (Exception e) {
+                log.warn("订阅会话失效通知失败，{}秒后重试: {}", SUBSCRIBE_RETRY_SECONDS, e.getMessage());
+                redisMessageListenerContainer.stop();
+                startSubscriptionLater();
+            }
+        }, CompletableFuture.delayedExecutor(0, TimeUnit.SECONDS));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    private void startSubscriptionLater() {
+        if (shutdown) {
+            return;
+        }
+        CompletableFuture.runAsync(this::startSubscription,
+                CompletableFuture.delayedExecutor(SUBSCRIBE_RETRY_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 创建会话
+     */
+    public void createSession(String uploadId, UploadSessionRecord session) {
+        Map<String, String> fields = session.toHash();
+        fields.put(STATE_FIELD, STATE_ACTIVE);
+        String sessionKey = SESSION_KEY_PREFIX + uploadId;
+        stringRedisTemplate.opsForHash().putAll(sessionKey, fields);
+        stringRedisTemplate.expire(sessionKey, Duration.ofSeconds(SESSION_TTL_SECONDS));
+    }
+
+    /**
+     * 获取会话信息，不存在时返回null
+     */
+    public UploadSessionRecord getSession(String uploadId) {
+        // 不存在的会话不缓存
+        return sessionCache.get(uploadId, this::loadSession);
+    }
+
+    private UploadSessionRecord loadSession(String uploadId) {
+        Map<Object, Object> entries = withLegacyFallback(uploadId,
+                () -> stringRedisTemplate.opsForHash().entries(SESSION_KEY_PREFIX + uploadId));
+        return entries.isEmpty() ? null : UploadSessionRecord.fromHash(entries);
+    }
+
+    /**
+     * 记录分片开始上传的时间（单次往返），同一分片的多次上传只保留最早的开始时间
+     * 分片记录成功时由写分片的脚本清除
+     */
+    public void beginPart(String uploadId, int partNumber, long startMillis) {
+        stringRedisTemplate.execute(BEGIN_PART_SCRIPT, List.of(INFLIGHT_KEY_PREFIX + uploadId),
+                String.valueOf(partNumber), String.valueOf(startMillis), String.valueOf(SESSION_TTL_SECONDS));
+    }
+
+    /**
+     * 清除进行中的分片，用于分片上传失败或判定为已失效的记录
+     */
+    public void clearInflight(String uploadId, Collection<Integer> partNumbers) {
+        if (partNumbers.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.opsForHash().delete(INFLIGHT_KEY_PREFIX + uploadId,
+                partNumbers.stream().map(String::valueOf).toArray());
+    }
+
+    /**
+     * 校验会话、记录分片并刷新过期时间（单次原子操作）
+     * 同一分片号先完成的上传胜出，之后完成的上传不覆盖已有记录
+     *
+     * @return 最终生效的分片记录，与传入的记录不同说明本次上传晚于其它上传完成
+     */
+    public UploadPartRecord recordPart(String uploadId, UploadPartRecord part) {
+        // 分片记录是二进制编码，脚本参数不能经过字符串序列化
+        List<?> result = withLegacyFallback(uploadId, () -> stringRedisTemplate.execute(RECORD_PART_SCRIPT,
+                BYTES, bytesAs(), partKeys(uploadId), bytes(String.valueOf(part.getPartNumber())),
+                UploadRecordCodec.encode(part), bytes(String.valueOf(SESSION_TTL_SECONDS))));
+        String status = result == null || result.isEmpty() ? "MISSING" : string(result.get(0));
+        switch (status) {
+            case "OK":
+                return part;
+            case "DUP":
+                return UploadRecordCodec.decode((byte[]) result.get(1));
+            case "CLAIMED":
+                throw new RuntimeException("上传会话正在合并，不能继续上传分片");
+            default:
+                throw new RuntimeException("上传会话不存在或已过期");
+        }
+    }
+
+    /**
+     * 已记录的全部分片
+     */
+    public List<UploadPartRecord> getParts(String uploadId) {
+        List<UploadPartRecord> parts = new ArrayList<>();
+        List<byte[]> values = stringRedisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.hashCommands().hVals(bytes(PARTS_KEY_PREFIX + uploadId)));
+        if (values != null) {
+            for (byte[] value : values) {
+                parts.add(UploadRecordCodec.decode(value));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * 进行中的分片及其最早开始时间（毫秒）
+     */
+    public Map<Integer, Long> getInflightParts(String uploadId) {
+        Map<Integer, Long> inflight = new TreeMap<>();
+        stringRedisTemplate.opsForHash().entries(INFLIGHT_KEY_PREFIX + uploadId)
+                .forEach((k, v) -> inflight.put(Integer.parseInt(k.toString()), Long.parseLong(v.toString())));
+        return inflight;
+    }
+
+    /**
+     * 抢占会话用于合并，并返回会话和全部分片信息（单次原子操作）
+     * 同一uploadId只有一个调用方能抢占成功
+     */
+    public UploadClaim claimForCompletion(String uploadId) {
+        List<?> result = withLegacyFallback(uploadId,
+                () -> stringRedisTemplate.execute(CLAIM_COMPLETE_SCRIPT, BYTES, bytesAs(), keys(uploadId)));
+        String status = result == null || result.isEmpty() ? "MISSING" : string(result.get(0));
+        if ("MISSING".equals(status)) {
+            throw new RuntimeException("上传会话不存在或已过期");
+        }
+        if ("CLAIMED".equals(status)) {
+            throw new RuntimeException("上传会话正在合并中");
+        }
+        int sessionEnd = 2 + ((Number) result.get(1)).intValue();
+        Map<String, String> sessionFields = new HashMap<>();
+        for (int i = 2; i < sessionEnd; i += 2) {
+            sessionFields.put(string(result.get(i)), string(result.get(i + 1)));
+        }
+        List<UploadPartRecord> parts = new ArrayList<>();
+        for (int i = sessionEnd + 1; i < result.size(); i += 2) {
+            parts.add(UploadRecordCodec.decode((byte[]) result.get(i)));
+        }
+        return new UploadClaim(UploadSessionRecord.fromHash(sessionFields), parts);
+    }
+
+    /**
+     * 合并失败时释放抢占，允许重试
+     */
+    public void releaseClaim(String uploadId) {
+        stringRedisTemplate.execute(RELEASE_CLAIM_SCRIPT, List.of(SESSION_KEY_PREFIX + uploadId));
+    }
+
+    /**
+     * 删除会话、分片索引及断点续传缓存
+     */
+    public void delete(String uploadId) {
+        stringRedisTemplate.delete(List.of(SESSION_KEY_PREFIX + uploadId, PARTS_KEY_PREFIX + uploadId,
+                RESUME_KEY_PREFIX + uploadId, INFLIGHT_KEY_PREFIX + uploadId));
+        sessionCache.invalidate(uploadId);
+        // 通知其它节点丢弃本地缓存；通知失败时其它节点的缓存在过期后失效，期间写分片仍会被Lua脚本拒绝
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, uploadId);
+        } catch (Exception e) {
+            log.warn("发送会话失效通知失败: uploadId={}, error={}", uploadId, e.getMessage());
+        }
+    }
+
+    /**
+     * 升级前的会话以字符串保存，对其执行hash命令会返回WRONGTYPE；此时把会话和分片转换为新格式后重试一次
+     */
+    private <T> T withLegacyFallback(String uploadId, Supplier<T> operation) {
+        try {
+            return operation.get();
+        } catch (DataAccessException e) {
+            if (!isWrongType(e) || !migrateLegacy(uploadId)) {
+                throw e;
+            }
+            return operation.get();
+        }
+    }
+
+    /**
+     * 转换升级前RedisUtil写入的会话（upload_session:<uploadId>字符串）和分片（upload_part:<uploadId>:<分片号>），
+     * 保留会话原有的剩余过期时间
+     *
+     * @return 是否找到并转换了旧格式的会话
+     */
+    private boolean migrateLegacy(String uploadId) {
+        String sessionKey = SESSION_KEY_PREFIX + uploadId;
+        byte[] legacySession = stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(sessionKey)));
+        if (legacySession == null) {
+            return false;
+        }
+        Long ttl = stringRedisTemplate.getExpire(sessionKey, TimeUnit.SECONDS);
+        List<String> legacyPartKeys = new ArrayList<>();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(ScanOptions.scanOptions()
+                .match(LEGACY_PART_KEY_PREFIX + uploadId + ":*").count(1000).build())) {
+            cursor.forEachRemaining(legacyPartKeys::add);
+        }
+        List<byte[]> legacyParts = legacyPartKeys.isEmpty() ? List.of()
+                : stringRedisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                        connection.stringCommands().mGet(legacyPartKeys.stream().map(UploadSessionStore::bytes)
+                                .toArray(byte[][]::new)));
+
+        Map<String, String> fields = UploadRecordCodec.decodeLegacySession(legacySession).toHash();
+        List<byte[]> args = new ArrayList<>();
+        args.add(bytes(String.valueOf(ttl == null || ttl <= 0 ? SESSION_TTL_SECONDS : ttl)));
+        args.add(bytes(String.valueOf(fields.size() * 2)));
+        fields.forEach((field, value) -> {
+            args.add(bytes(field));
+            args.add(bytes(value));
+        });
+        for (byte[] value : legacyParts == null ? List.<byte[]>of() : legacyParts) {
+            // 扫描到MGET之间过期的分片为null
+            if (value != null) {
+                UploadPartRecord part = UploadRecordCodec.decode(value);
+                args.add(bytes(String.valueOf(part.getPartNumber())));
+                args.add(UploadRecordCodec.encode(part));
+            }
+        }
+        List<String> scriptKeys = new ArrayList<>(keys(uploadId));
+        scriptKeys.addAll(legacyPartKeys);
+        stringRedisTemplate.execute(MIGRATE_LEGACY_SCRIPT, BYTES, bytesAs(), scriptKeys, args.toArray());
+        log.info("已转换旧格式的上传会话: uploadId={}, parts={}", uploadId, legacyPartKeys.size());
+        // 其它节点并发转换时脚本返回0，会话同样已是新格式，可以重试
+        return true;
+    }
+
+    private static boolean isWrongType(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("WRONGTYPE")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> keys(String uploadId) {
+        return List.of(SESSION_KEY_PREFIX + uploadId, PARTS_KEY_PREFIX + uploadId);
+    }
+
+    private static List<String> partKeys(String uploadId) {
+        return List.of(SESSION_KEY_PREFIX + uploadId, PARTS_KEY_PREFIX + uploadId, INFLIGHT_KEY_PREFIX + uploadId);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(Object value) {
+        return value instanceof byte[] data ? new String(data, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    /**
+     * 脚本返回值按原始字节返回，整数结果不经过序列化器
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> RedisSerializer<T> bytesAs() {
+        return (RedisSerializer<T>) (RedisSerializer<?>) BYTES;
+    }
+
+    private static <T> DefaultRedisScript<T> script(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+}
@@ -0,0 +1,103 @@
+package com.code.minio.util;
+
+import com.code.minio.config.AdmissionProperties;
+
+/**
+ * AIMD自适应并发上限
+ * 记录MinIO上传调用按字节归一化的耗时（每MB纳秒数）的短期和长期指数移动平均：短期均值超过长期均值的tolerance倍
+ * （MinIO开始排队），或请求以5xx结束时，把上限乘以backoffRatio；否则在并发接近上限时每个成功请求把上限增加1/上限，
+ * 即大约每一轮请求增加1。长期均值会随持续的变化缓慢跟上，负载稳定后上限重新回升。
+ * 耗时取自MinIO调用本身而不是整个请求，按字节归一化后不同大小的上传可以比较
+ */
+public class AimdConcurrencyLimiter {
+
+    /** 短期、长期均值的平滑系数 */
+    private static final double SHORT_ALPHA = 0.2;
+    private static final double LONG_ALPHA = 0.01;
+    /** 长期均值稳定前不根据耗时降低上限 */
+    private static final int WARMUP_SAMPLES = 20;
+    private static final double MB = 1024 * 1024;
+    /** 小请求的耗时以固定开销为主，按不小于该字节数归一化，避免小文件把每字节耗时拉高 */
+    private static final long MIN_SAMPLE_BYTES = 64 * 1024;
+
+    private final AdmissionProperties.Concurrency config;
+    private double limit;
+    private int inFlight;
+    private double shortLatency;
+    private double longLatency;
+    private long samples;
+    private long lastDecrease;
+
+    public AimdConcurrencyLimiter(AdmissionProperties.Concurrency config) {
+        this.config = config;
+        this.limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), config.getInitialLimit()));
+    }
+
+    /**
+     * 在途请求数未达到上限时占用一个名额
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 请求结束时释放名额；以服务端错误结束时降低上限，MinIO未排队且并发接近上限时增加上限
+     * @param dropped 请求是否以服务端错误结束
+     */
+    public synchronized void release(boolean dropped) {
+        int current = inFlight;
+        inFlight = Math.max(0, inFlight - 1);
+        if (dropped || queueing()) {
+            decrease();
+        } else if (current * 2 >= (int) limit) {
+            // 并发远低于上限时说明上限不是瓶颈，不再增加
+            limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+        }
+    }
+
+    /**
+     * 记录一次MinIO上传调用的耗时，按字节归一化后更新均值，MinIO开始排队时降低上限
+     * @param latencyNanos MinIO调用耗时
+     * @param bytes 上传的字节数
+     */
+    public synchronized void recordLatency(long latencyNanos, long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        double perMb = latencyNanos * MB / Math.max(bytes, MIN_SAMPLE_BYTES);
+        if (samples++ == 0) {
+            shortLatency = perMb;
+            longLatency = perMb;
+        } else {
+            shortLatency += SHORT_ALPHA * (perMb - shortLatency);
+            longLatency += LONG_ALPHA * (perMb - longLatency);
+        }
+        if (queueing()) {
+            decrease();
+        }
+    }
+
+    private boolean queueing() {
+        return samples >= WARMUP_SAMPLES && shortLatency > longLatency * config.getTolerance();
+    }
+
+    private void decrease() {
+        long now = System.nanoTime();
+        if (now - lastDecrease >= config.getDecreaseInterval().toNanos()) {
+            lastDecrease = now;
+            limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,186 @@
+package com.code.minio.util;
+
+import com.code.minio.config.AsyncProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 控制器的异步执行入口
+ * 有异步API的调用（MinioAsyncClient）经{@link #compose}直接返回其CompletableFuture，不占用I/O线程；
+ * AmazonS3和MinioClient只有阻塞API，经{@link #supply}/{@link #respond}提交到有界的I/O线程池，
+ * 每个进行中的请求仍占用一个I/O线程，收益在于S3调用与Tomcat工作线程隔离、池满时快速返回503，而不是非阻塞I/O。
+ * 直接读取请求体的任务（流式分片、tar导入）耗时取决于客户端网速，经{@link #stream}在异步处理开始后提交到单独的流式线程池，
+ * 慢速客户端占满流式线程池时返回503，I/O线程池上的初始化、合并等短调用不受影响；StreamingResponseBody同样由流式线程池执行。
+ * MultipartFile参数在进入控制器前已由请求线程解析完，不经过流式线程池。
+ * 关闭异步模式时任务在请求线程中同步执行，返回已完成的结果
+ */
+@Component
+@Slf4j
+public class AsyncIoExecutor {
+
+    @Autowired
+    private AsyncProperties asyncProperties;
+
+    @Autowired
+    private ThreadPoolTaskExecutor ioExecutor;
+
+    @Autowired
+    private ThreadPoolTaskExecutor streamExecutor;
+
+    public AsyncIoExecutor() {
+    }
+
+    /**
+     * 不经过Spring容器直接构造，用于测试和基准测试
+     */
+    AsyncIoExecutor(AsyncProperties asyncProperties, ThreadPoolTaskExecutor ioExecutor,
+                    ThreadPoolTaskExecutor streamExecutor) {
+        this.asyncProperties = asyncProperties;
+        this.ioExecutor = ioExecutor;
+        this.streamExecutor = streamExecutor;
+    }
+
+    /**
+     * 执行任务，I/O线程池已满时返回的future以RejectedExecutionException失败
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        if (!asyncProperties.isEnabled()) {
+            try {
+                return CompletableFuture.completedFuture(task.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            return submit(task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 执行返回统一响应体的任务，I/O线程池已满时直接返回503
+     */
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> respond(
+            Callable<ResponseEntity<Map<String, Object>>> task) {
+        return respond(task, AsyncIoExecutor::busy);
+    }
+
+    /**
+     * 执行返回ResponseEntity的任务，I/O线程池已满时返回busy提供的响应
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> respond(Callable<ResponseEntity<T>> task,
+                                                           Supplier<ResponseEntity<T>> busy) {
+        if (!asyncProperties.isEnabled()) {
+            return supply(task);
+        }
+        try {
+            return submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("I/O线程池已满: active={}, queued={}",
+                    ioExecutor.getActiveCount(), ioExecutor.getThreadPoolExecutor().getQueue().size());
+            return CompletableFuture.completedFuture(busy.get());
+        }
+    }
+
+    /**
+     * 执行读取请求体的任务，流式线程池已满时直接返回503
+     */
+    public DeferredResult<ResponseEntity<Map<String, Object>>> stream(
+            HttpServletRequest request, Callable<ResponseEntity<Map<String, Object>>> task) {
+        return stream(request, task, AsyncIoExecutor::busy);
+    }
+
+    /**
+     * 执行读取请求体的任务，流式线程池已满时返回busy提供的响应
+     * 任务在异步处理开始（startAsync）之后才提交，请求体不会在请求线程仍处于控制器中时被其他线程读取
+     */
+    public <T> DeferredResult<ResponseEntity<T>> stream(HttpServletRequest request, Callable<ResponseEntity<T>> task,
+                                                       Supplier<ResponseEntity<T>> busy) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>();
+        if (!asyncProperties.isEnabled()) {
+            complete(result, task);
+            return result;
+        }
+        WebAsyncUtils.getAsyncManager(request).registerDeferredResultInterceptor(AsyncIoExecutor.class.getName(),
+                new DeferredResultProcessingInterceptor() {
+                    @Override
+                    public <R> void preProcess(NativeWebRequest webRequest, DeferredResult<R> deferredResult) {
+                        try {
+                            streamExecutor.execute(() -> complete(result, task));
+                        } catch (RejectedExecutionException e) {
+                            log.warn("流式线程池已满: active={}, queued={}", streamExecutor.getActiveCount(),
+                                    streamExecutor.getThreadPoolExecutor().getQueue().size());
+                            result.setResult(busy.get());
+                        }
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * 执行本身返回CompletableFuture的非阻塞调用，调用发起后请求线程即释放；
+     * 关闭异步模式时在请求线程中等待结果
+     */
+    public <T> CompletableFuture<T> compose(Callable<CompletableFuture<T>> call) {
+        CompletableFuture<T> future;
+        try {
+            future = call.call();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (asyncProperties.isEnabled()) {
+            return future;
+        }
+        try {
+            return CompletableFuture.completedFuture(future.join());
+        } catch (CompletionException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, ioExecutor);
+    }
+
+    private static <T> void complete(DeferredResult<T> result, Callable<T> task) {
+        try {
+            result.setResult(task.call());
+        } catch (Exception e) {
+            result.setErrorResult(e);
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> busy() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("code", 503);
+        errorResponse.put("message", "服务繁忙，请稍后重试");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+}
@@ -0,0 +1,110 @@
+package com.code.minio.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定容量的缓冲区池
+ * 缓冲区按需分配、归还后复用，池中缓冲区总数不超过capacity，借出的内存总量因此有上界。
+ * 指定共享的{@link MemoryBudget}时，分配新缓冲区前还需从预算中扣减，关闭缓冲区池时归还
+ */
+public class BufferPool implements AutoCloseable {
+
+    private final int bufferSize;
+    private final int capacity;
+    private final boolean direct;
+    private final Semaphore permits;
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final MemoryBudget budget;
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public BufferPool(int bufferSize, int capacity, boolean direct) {
+        this(bufferSize, capacity, direct, null);
+    }
+
+    /**
+     * @param budget 与其他缓冲区池共享的内存预算，为null时只受capacity限制
+     */
+    public BufferPool(int bufferSize, int capacity, boolean direct, MemoryBudget budget) {
+        if (bufferSize <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("缓冲区大小和数量必须大于0");
+        }
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+        this.direct = direct;
+        this.permits = new Semaphore(capacity, true);
+        this.budget = budget;
+    }
+
+    /**
+     * 按内存预算创建缓冲区池
+     * @param bufferSize 单个缓冲区大小
+     * @param budgetBytes 内存预算
+     */
+    public static BufferPool ofBudget(int bufferSize, long budgetBytes, boolean direct) {
+        int capacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes / bufferSize));
+        return new BufferPool(bufferSize, capacity, direct);
+    }
+
+    /**
+     * 借出一个缓冲区，超时未获取到（包括共享内存预算不足）时返回null
+     */
+    public ByteBuffer acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            if (budget != null && !budget.tryAcquire(bufferSize, timeout, unit)) {
+                permits.release();
+                return null;
+            }
+            allocated.incrementAndGet();
+            buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        buffer.clear();
+        freeBuffers.offer(buffer);
+        permits.release();
+    }
+
+    /**
+     * 把已分配缓冲区占用的预算归还给共享内存预算，调用前所有缓冲区都应已归还
+     */
+    @Override
+    public void close() {
+        if (budget != null) {
+            budget.release((long) bufferSize * allocated.getAndSet(0));
+        }
+        freeBuffers.clear();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 当前借出的缓冲区个数
+     */
+    public int getInUse() {
+        return capacity - permits.availablePermits();
+    }
+}
@@ -0,0 +1,135 @@
+package com.code.minio.util;
+
+import com.code.minio.config.ProxyProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 识别请求的客户端地址
+ * 对端是受信任的代理时，从X-Forwarded-For自右向左跳过受信任的代理，取第一个不受信任的地址；
+ * 否则直接使用对端地址，客户端自行填写的X-Forwarded-For不起作用
+ */
+@Component
+@Slf4j
+public class ClientAddressResolver {
+
+    public static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    /** 只解析IP字面量，避免把请求头中的任意字符串交给DNS */
+    private static final Pattern IP_LITERAL = Pattern.compile("[0-9a-fA-F:.]+");
+
+    @Autowired
+    private ProxyProperties proxyProperties;
+
+    private final List<byte[]> networks = new ArrayList<>();
+
+    private final List<Integer> prefixLengths = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        for (String entry : proxyProperties.getTrustedProxies()) {
+            String[] parts = entry.trim().split("/", 2);
+            byte[] address = parse(parts[0]);
+            if (address == null) {
+                throw new IllegalArgumentException("受信任代理地址格式不正确: " + entry);
+            }
+            int bits = address.length * 8;
+            int prefixLength = bits;
+            if (parts.length == 2) {
+                try {
+                    prefixLength = Integer.parseInt(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    prefixLength = -1;
+                }
+                if (prefixLength < 0 || prefixLength > bits) {
+                    throw new IllegalArgumentException("受信任代理网段前缀长度必须在0-" + bits + "之间: " + entry);
+                }
+            }
+            networks.add(address);
+            prefixLengths.add(prefixLength);
+        }
+    }
+
+    /**
+     * 客户端地址
+     */
+    public String clientAddress(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (!isTrusted(remote)) {
+            return remote;
+        }
+        String forwardedFor = request.getHeader(FORWARDED_FOR);
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remote;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!isTrusted(hop)) {
+                return hop;
+            }
+        }
+        return hops[0].trim();
+    }
+
+    /**
+     * 请求是否直接来自受信任的代理
+     */
+    public boolean fromTrustedProxy(HttpServletRequest request) {
+        return isTrusted(request.getRemoteAddr());
+    }
+
+    private boolean isTrusted(String address) {
+        if (networks.isEmpty()) {
+            return false;
+        }
+        byte[] bytes = parse(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (int i = 0; i < networks.size(); i++) {
+            if (matches(networks.get(i), prefixLengths.get(i), bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] network, int prefixLength, byte[] address) {
+        if (network.length != address.length) {
+            return false;
+        }
+        int fullBytes = prefixLength / 8;
+        for (int i = 0; i < fullBytes; i++) {
+            if (network[i] != address[i]) {
+                return false;
+            }
+        }
+        int remainingBits = prefixLength % 8;
+        if (remainingBits == 0) {
+            return true;
+        }
+        int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+        return (network[fullBytes] & mask) == (address[fullBytes] & mask);
+    }
+
+    private static byte[] parse(String address) {
+        if (address == null || address.isEmpty() || !IP_LITERAL.matcher(address).matches()) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.code.minio.util;
+
+import io.minio.StatObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 对象存储时使用的压缩格式
+ * 压缩格式和原始大小记录在对象的用户元数据中，下载时据此解压；
+ * 不设置Content-Encoding，避免HTTP客户端自动解压后与元数据不一致
+ */
+public enum CompressionCodec {
+
+    GZIP("gzip");
+
+    /** 用户元数据：压缩格式 */
+    public static final String META_CODEC = "codec";
+    /** 用户元数据：压缩前的字节数 */
+    public static final String META_ORIGINAL_SIZE = "original-size";
+
+    private final String id;
+
+    CompressionCodec(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public InputStream compress(InputStream in, int level) {
+        return new GzipCompressingInputStream(in, level);
+    }
+
+    public InputStream decompress(InputStream in) throws IOException {
+        return new GZIPInputStream(in, 64 * 1024);
+    }
+
+    /**
+     * 按名称查找，null、none或不支持的格式返回null
+     */
+    public static CompressionCodec of(String id) {
+        if (id == null) {
+            return null;
+        }
+        String normalized = id.trim().toLowerCase(Locale.ROOT);
+        for (CompressionCodec codec : values()) {
+            if (codec.id.equals(normalized)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 对象的压缩格式，未压缩时返回null
+     */
+    public static CompressionCodec of(StatObjectResponse stat) {
+        return stat.userMetadata() == null ? null : of(stat.userMetadata().get(META_CODEC));
+    }
+
+    /**
+     * 对象压缩前的大小，元数据缺失时返回-1
+     */
+    public static long originalSize(StatObjectResponse stat) {
+        String value = stat.userMetadata() == null ? null : stat.userMetadata().get(META_ORIGINAL_SIZE);
+        try {
+            return value == null ? -1 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
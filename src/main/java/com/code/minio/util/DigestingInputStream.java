@@ -0,0 +1,141 @@
+package com.code.minio.util;
+
+import io.minio.ObjectWriteArgs;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 上传时边读边计算摘要的输入流
+ * 同时计算整个流的MD5、SHA-256以及每个分片的MD5，上传结束后据此得出S3应返回的ETag：
+ * 单次上传的ETag为内容的MD5，分片上传的ETag为各分片MD5拼接后再取MD5并附加"-分片数"
+ */
+public class DigestingInputStream extends FilterInputStream {
+
+    private final long partSize;
+    private final MessageDigest md5;
+    private final MessageDigest sha256;
+    private final MessageDigest partMd5;
+    /** 各分片MD5拼接后的摘要 */
+    private final MessageDigest partsMd5;
+    private long partBytes;
+    private long totalBytes;
+    private int partCount;
+
+    /**
+     * @param partSize 上传使用的分片大小，需与putObject传入的分片大小一致
+     */
+    public DigestingInputStream(InputStream in, long partSize) {
+        super(in);
+        this.partSize = partSize;
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+            this.partMd5 = MessageDigest.getInstance("MD5");
+            this.partsMd5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按对象大小确定分片大小：至少5MB，且分片数不超过10000，按5MB取整
+     */
+    public static long partSizeFor(long objectSize) {
+        long minSize = ObjectWriteArgs.MIN_MULTIPART_SIZE;
+        long size = (objectSize + ObjectWriteArgs.MAX_MULTIPART_COUNT - 1) / ObjectWriteArgs.MAX_MULTIPART_COUNT;
+        return Math.max(minSize, (size + minSize - 1) / minSize * minSize);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            update(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的字节不会经过摘要计算
+        throw new IOException("DigestingInputStream不支持skip");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void update(byte[] b, int off, int len) {
+        md5.update(b, off, len);
+        sha256.update(b, off, len);
+        totalBytes += len;
+        while (len > 0) {
+            int n = (int) Math.min(len, partSize - partBytes);
+            partMd5.update(b, off, n);
+            partBytes += n;
+            off += n;
+            len -= n;
+            if (partBytes == partSize) {
+                finishPart();
+            }
+        }
+    }
+
+    private void finishPart() {
+        partsMd5.update(partMd5.digest());
+        partBytes = 0;
+        partCount++;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public String md5Hex() {
+        return HexFormat.of().formatHex(clone(md5).digest());
+    }
+
+    public String sha256Hex() {
+        return HexFormat.of().formatHex(clone(sha256).digest());
+    }
+
+    /**
+     * S3对本次上传应返回的ETag（不带引号），需在流读完后调用
+     */
+    public String expectedETag() {
+        // 内容不超过一个分片时minio-java使用单次PUT
+        if (totalBytes <= partSize) {
+            return md5Hex();
+        }
+        MessageDigest parts = clone(partsMd5);
+        int count = partCount;
+        if (partBytes > 0) {
+            parts.update(clone(partMd5).digest());
+            count++;
+        }
+        return HexFormat.of().formatHex(parts.digest()) + "-" + count;
+    }
+
+    private static MessageDigest clone(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.code.minio.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * 读取时输出gzip压缩数据的输入流
+ * 与GZIPOutputStream相反，压缩后的数据由调用方拉取，可以直接作为putObject的数据流，不需要额外线程或临时文件
+ */
+public class GzipCompressingInputStream extends InputStream {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final CheckedInputStream source;
+    private final Deflater deflater;
+    private final DeflaterInputStream deflated;
+    private byte[] pending = HEADER;
+    private int pendingPos;
+    private boolean bodyDone;
+    private boolean trailerDone;
+
+    public GzipCompressingInputStream(InputStream in, int level) {
+        this.source = new CheckedInputStream(in, new CRC32());
+        this.deflater = new Deflater(level, true);
+        this.deflated = new DeflaterInputStream(source, deflater, 64 * 1024);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (pending != null) {
+                int n = Math.min(len, pending.length - pendingPos);
+                System.arraycopy(pending, pendingPos, b, off, n);
+                pendingPos += n;
+                if (pendingPos == pending.length) {
+                    pending = null;
+                }
+                return n;
+            }
+            if (!bodyDone) {
+                int n = deflated.read(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+                if (n < 0) {
+                    bodyDone = true;
+                }
+                continue;
+            }
+            if (!trailerDone) {
+                trailerDone = true;
+                pending = trailer();
+                pendingPos = 0;
+                continue;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * gzip尾部：原始内容的CRC32和长度（模2^32），均为小端序
+     */
+    private byte[] trailer() {
+        long crc = source.getChecksum().getValue();
+        long size = deflater.getBytesRead();
+        byte[] trailer = new byte[8];
+        for (int i = 0; i < 4; i++) {
+            trailer[i] = (byte) (crc >>> (8 * i));
+            trailer[4 + i] = (byte) (size >>> (8 * i));
+        }
+        return trailer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            deflated.close();
+        } finally {
+            deflater.end();
+        }
+    }
+}
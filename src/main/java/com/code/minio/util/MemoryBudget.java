@@ -0,0 +1,49 @@
+package com.code.minio.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个缓冲区池共享的内存预算
+ * 按KiB计数，缓冲区池分配新缓冲区前从预算中扣减，关闭时归还；单次申请超过总预算时按总预算计算
+ */
+public class MemoryBudget {
+
+    private static final int UNIT = 1024;
+
+    private final int totalPermits;
+    private final Semaphore permits;
+
+    public MemoryBudget(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("内存预算必须大于0");
+        }
+        this.totalPermits = (int) Math.min(Integer.MAX_VALUE, (budgetBytes + UNIT - 1) / UNIT);
+        this.permits = new Semaphore(totalPermits, true);
+    }
+
+    /**
+     * 申请bytes字节的预算，超时未获取到时返回false
+     */
+    public boolean tryAcquire(long bytes, long timeout, TimeUnit unit) throws InterruptedException {
+        return permits.tryAcquire(toPermits(bytes), timeout, unit);
+    }
+
+    /**
+     * 归还bytes字节的预算
+     */
+    public void release(long bytes) {
+        permits.release(toPermits(bytes));
+    }
+
+    /**
+     * 当前已分配的字节数
+     */
+    public long getInUseBytes() {
+        return (long) (totalPermits - permits.availablePermits()) * UNIT;
+    }
+
+    private int toPermits(long bytes) {
+        return (int) Math.min(totalPermits, (bytes + UNIT - 1) / UNIT);
+    }
+}
@@ -0,0 +1,132 @@
+package com.code.minio.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于池化缓冲区的定长输入流
+ * 从源流中最多读取length个字节，支持在缓冲区容量内mark/reset（供SDK重试使用），关闭时把缓冲区归还给池
+ */
+public class PooledBufferInputStream extends InputStream {
+
+    private final InputStream source;
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    private final byte[] buf;
+    private long remaining;
+    private int pos;
+    private int count;
+    private int markPos = -1;
+    private boolean closed;
+
+    public PooledBufferInputStream(InputStream source, long length, BufferPool pool, ByteBuffer buffer) {
+        if (!buffer.hasArray()) {
+            throw new IllegalArgumentException("需要堆内缓冲区");
+        }
+        this.source = source;
+        this.remaining = length;
+        this.pool = pool;
+        this.buffer = buffer;
+        this.buf = buffer.array();
+    }
+
+    /**
+     * 从源流补充数据到缓冲区，保留mark之后的数据
+     */
+    private void fill() throws IOException {
+        if (markPos < 0) {
+            pos = 0;
+        } else if (pos >= buf.length) {
+            if (markPos > 0) {
+                int keep = pos - markPos;
+                System.arraycopy(buf, markPos, buf, 0, keep);
+                pos = keep;
+                markPos = 0;
+            } else {
+                // mark之后的数据已超过缓冲区容量，mark失效
+                markPos = -1;
+                pos = 0;
+            }
+        }
+        count = pos;
+        if (remaining <= 0) {
+            return;
+        }
+        int n = source.read(buf, pos, (int) Math.min(buf.length - pos, remaining));
+        if (n < 0) {
+            throw new IOException("请求体提前结束，仍缺少 " + remaining + " 字节");
+        }
+        remaining -= n;
+        count = pos + n;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (pos >= count) {
+            fill();
+            if (pos >= count) {
+                return -1;
+            }
+        }
+        return buf[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= count) {
+            fill();
+            if (pos >= count) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, count - pos);
+        System.arraycopy(buf, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return (int) Math.min(Integer.MAX_VALUE, (count - pos) + Math.min(remaining, source.available()));
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        markPos = pos;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        ensureOpen();
+        if (markPos < 0) {
+            throw new IOException("mark已失效，已读取的数据超过缓冲区容量");
+        }
+        pos = markPos;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pool.release(buffer);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("流已关闭");
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.code.minio.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 顺序读取tar流
+ * 支持ustar的前缀字段、GNU长文件名（L）和pax扩展头（x）中的path；只返回普通文件，目录和其它类型跳过。
+ * 每个条目的内容通过entryStream()读取，调用next()时自动跳过未读完的内容和填充。
+ * 头部校验和错误、字段无法解析或流提前结束时抛出TarFormatException，调用方据此区分客户端数据错误和服务端异常
+ */
+public class TarStreamReader {
+
+    private static final int BLOCK = 512;
+
+    private final InputStream in;
+    private final byte[] header = new byte[BLOCK];
+    /** 当前条目剩余未读的内容字节数 */
+    private long remaining;
+    /** 当前条目内容之后的填充字节数 */
+    private long padding;
+
+    public TarStreamReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * tar数据格式错误（头部损坏、字段无效或流被截断）
+     */
+    public static class TarFormatException extends IOException {
+        public TarFormatException(String message) {
+            super(message);
+        }
+    }
+
+    public static final class Entry {
+        private final String name;
+        private final long size;
+
+        Entry(String name, long size) {
+            this.name = name;
+            this.size = size;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * 读取下一个普通文件条目，流结束时返回null
+     */
+    public Entry next() throws IOException {
+        skipFully(remaining + padding);
+        remaining = 0;
+        padding = 0;
+        String longName = null;
+        while (true) {
+            if (!readBlock(header)) {
+                return null;
+            }
+            if (isZeroBlock(header)) {
+                return null;
+            }
+            verifyChecksum();
+            long size = parseSize();
+            long pad = (BLOCK - size % BLOCK) % BLOCK;
+            byte type = header[156];
+            if (type == 'L' || type == 'x') {
+                byte[] content = readContent(size);
+                skipFully(pad);
+                longName = type == 'L' ? trimNul(new String(content, StandardCharsets.UTF_8)) : paxPath(content, longName);
+                continue;
+            }
+            if (type != '0' && type != 0 && type != '7') {
+                // 目录、链接、全局pax头等不产生对象
+                skipFully(size + pad);
+                longName = null;
+                continue;
+            }
+            String name = longName != null ? longName : headerName();
+            remaining = size;
+            padding = pad;
+            return new Entry(name, size);
+        }
+    }
+
+    /**
+     * 当前条目内容的输入流，关闭时不会关闭底层流
+     */
+    public InputStream entryStream() {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = in.read();
+                if (b < 0) {
+                    throw new TarFormatException("tar条目内容不完整");
+                }
+                remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int n = in.read(b, off, (int) Math.min(len, remaining));
+                if (n < 0) {
+                    throw new TarFormatException("tar条目内容不完整");
+                }
+                remaining -= n;
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = in.skip(Math.min(n, remaining));
+                remaining -= skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() throws IOException {
+                return (int) Math.min(in.available(), remaining);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private String headerName() {
+        String name = field(0, 100);
+        // ustar格式的长路径拆成prefix和name两段
+        if (field(257, 5).equals("ustar")) {
+            String prefix = field(345, 155);
+            if (!prefix.isEmpty()) {
+                name = prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private long parseSize() throws IOException {
+        // 最高位为1时是GNU的二进制大小编码
+        if ((header[124] & 0x80) != 0) {
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xff);
+            }
+            return size;
+        }
+        String octal = field(124, 12).trim();
+        if (octal.isEmpty()) {
+            return 0;
+        }
+        try {
+            long size = Long.parseLong(octal, 8);
+            if (size < 0) {
+                throw new NumberFormatException();
+            }
+            return size;
+        } catch (NumberFormatException e) {
+            throw new TarFormatException("tar头部大小字段无效: " + octal);
+        }
+    }
+
+    /**
+     * 头部校验和：校验和字段按空格计算的全部字节之和，兼容按有符号字节计算的旧实现
+     */
+    private void verifyChecksum() throws TarFormatException {
+        String octal = field(148, 8).trim();
+        long expected;
+        try {
+            expected = Long.parseLong(octal, 8);
+        } catch (NumberFormatException e) {
+            throw new TarFormatException("tar头部校验和字段无效: " + octal);
+        }
+        long unsigned = 0;
+        long signed = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            byte b = i >= 148 && i < 156 ? (byte) ' ' : header[i];
+            unsigned += b & 0xff;
+            signed += b;
+        }
+        if (expected != unsigned && expected != signed) {
+            throw new TarFormatException("tar头部校验和错误");
+        }
+    }
+
+    /**
+     * pax扩展头由"长度 键=值\n"记录组成，只取path
+     * 长度是整条记录的字节数（含长度本身、空格和换行），按字节而不是字符切分
+     */
+    private static String paxPath(byte[] records, String current) throws TarFormatException {
+        int pos = 0;
+        while (pos < records.length) {
+            int space = pos;
+            while (space < records.length && records[space] != ' ') {
+                space++;
+            }
+            if (space == records.length) {
+                throw new TarFormatException("pax扩展头记录格式错误");
+            }
+            String lengthField = new String(records, pos, space - pos, StandardCharsets.US_ASCII);
+            int length;
+            try {
+                length = Integer.parseInt(lengthField);
+            } catch (NumberFormatException e) {
+                throw new TarFormatException("pax扩展头记录长度无效: " + lengthField);
+            }
+            if (length <= space - pos + 1 || length > records.length - pos || records[pos + length - 1] != '\n') {
+                throw new TarFormatException("pax扩展头记录长度无效: " + lengthField);
+            }
+            String record = new String(records, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            pos += length;
+        }
+        return current;
+    }
+
+    private String field(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static String trimNul(String value) {
+        int nul = value.indexOf('\0');
+        return nul >= 0 ? value.substring(0, nul) : value;
+    }
+
+    private byte[] readContent(long size) throws IOException {
+        if (size > 1024 * 1024) {
+            throw new TarFormatException("tar扩展头过大: " + size);
+        }
+        byte[] content = new byte[(int) size];
+        if (in.readNBytes(content, 0, content.length) != content.length) {
+            throw new TarFormatException("tar扩展头不完整");
+        }
+        return content;
+    }
+
+    private boolean readBlock(byte[] block) throws IOException {
+        int n = in.readNBytes(block, 0, BLOCK);
+        if (n == 0) {
+            return false;
+        }
+        if (n < BLOCK) {
+            throw new TarFormatException("tar头部不完整");
+        }
+        return true;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new TarFormatException("tar流提前结束");
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.code.minio.util;
+
+/**
+ * 本地令牌桶
+ * 按经过的时间补充令牌，不超过容量；一次消耗超过容量时按容量计算，保证大请求在桶满时仍能通过
+ */
+public class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param capacity 桶容量，即允许的突发量
+     */
+    public TokenBucket(double ratePerSecond, long capacity) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 尝试取令牌，令牌不足时不扣减
+     * @return 0 表示已取得；否则为令牌补足还需等待的毫秒数
+     */
+    public synchronized long tryAcquire(long cost) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+        double need = Math.min(cost, capacity);
+        if (tokens >= need) {
+            tokens -= need;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((need - tokens) / ratePerNano / 1_000_000d));
+    }
+
+    /**
+     * 退还已取得的令牌，用于多个令牌桶中有一个不足时撤销其余桶的扣减
+     */
+    public synchronized void refund(long cost) {
+        tokens = Math.min(capacity, tokens + Math.min(cost, capacity));
+    }
+}
@@ -0,0 +1,160 @@
+package com.code.minio.util;
+
+import com.code.minio.model.UploadPartRecord;
+import com.code.minio.model.UploadSessionRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * 分片记录的二进制编码
+ * 格式：版本(1字节) 标志(1字节) 分片号(varint) 分片大小(varint) 上传时间(varint) [上传耗时(varint)，版本2起] ETag；
+ * 标志位0表示ETag是32位十六进制MD5，按16字节原样存储，否则为 长度(varint)+UTF-8。
+ * 旧版本写入的JSON以'{'开头，与版本号不冲突，读取时按首字节区分，升级期间新旧数据可以共存；
+ * 升级前由RedisUtil写入的会话和分片（带@class类型信息的JSON字符串）也在这里解码
+ */
+public final class UploadRecordCodec {
+
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+
+    private static final int FLAG_MD5_ETAG = 1;
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+    private static final HexFormat HEX = HexFormat.of();
+
+    private UploadRecordCodec() {
+    }
+
+    public static byte[] encode(UploadPartRecord part) {
+        String etag = part.getEtag() == null ? "" : part.getEtag();
+        boolean md5 = isMd5Hex(etag);
+        byte[] etagBytes = md5 ? HEX.parseHex(etag) : etag.getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[2 + 10 * 4 + (md5 ? 0 : 5) + etagBytes.length];
+        int pos = 0;
+        out[pos++] = VERSION_2;
+        out[pos++] = (byte) (md5 ? FLAG_MD5_ETAG : 0);
+        pos = writeVarint(out, pos, part.getPartNumber());
+        pos = writeVarint(out, pos, part.getPartSize());
+        pos = writeVarint(out, pos, part.getUploadTime());
+        pos = writeVarint(out, pos, part.getDurationMillis());
+        if (!md5) {
+            pos = writeVarint(out, pos, etagBytes.length);
+        }
+        System.arraycopy(etagBytes, 0, out, pos, etagBytes.length);
+        return Arrays.copyOf(out, pos + etagBytes.length);
+    }
+
+    /**
+     * 解码分片记录，兼容旧版本的JSON
+     */
+    public static UploadPartRecord decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("分片记录为空");
+        }
+        if (data[0] == '{') {
+            return decodeLegacyJson(data);
+        }
+        if (data[0] != VERSION_1 && data[0] != VERSION_2) {
+            throw new IllegalArgumentException("不支持的分片记录版本: " + data[0]);
+        }
+        int[] pos = {2};
+        boolean md5 = (data[1] & FLAG_MD5_ETAG) != 0;
+        UploadPartRecord part = new UploadPartRecord();
+        part.setPartNumber((int) readVarint(data, pos));
+        part.setPartSize(readVarint(data, pos));
+        part.setUploadTime(readVarint(data, pos));
+        if (data[0] >= VERSION_2) {
+            part.setDurationMillis(readVarint(data, pos));
+        }
+        if (md5) {
+            part.setEtag(HEX.formatHex(data, pos[0], pos[0] + 16));
+        } else {
+            int length = (int) readVarint(data, pos);
+            part.setEtag(new String(data, pos[0], length, StandardCharsets.UTF_8));
+        }
+        return part;
+    }
+
+    private static UploadPartRecord decodeLegacyJson(byte[] data) {
+        try {
+            JsonNode node = LEGACY_MAPPER.readTree(data);
+            UploadPartRecord part = new UploadPartRecord();
+            part.setPartNumber((int) longValue(node.path("partNumber")));
+            part.setEtag(node.path("etag").asText(null));
+            part.setPartSize(longValue(node.path("partSize")));
+            part.setUploadTime(longValue(node.path("uploadTime")));
+            return part;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("分片记录解析失败", e);
+        }
+    }
+
+    /**
+     * 解码升级前RedisUtil.set写入的会话（GenericJackson2JsonRedisSerializer序列化的HashMap字符串）
+     */
+    public static UploadSessionRecord decodeLegacySession(byte[] data) {
+        try {
+            JsonNode node = LEGACY_MAPPER.readTree(data);
+            UploadSessionRecord session = new UploadSessionRecord();
+            session.setObjectKey(node.path("objectKey").asText(null));
+            session.setFileName(node.path("fileName").asText(null));
+            session.setContentType(node.path("contentType").asText(null));
+            session.setCreateTime(longValue(node.path("createTime")));
+            return session;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("会话记录解析失败", e);
+        }
+    }
+
+    /**
+     * GenericJackson2JsonRedisSerializer把Long写成 ["java.lang.Long", 值]，Integer直接写成数字
+     */
+    private static long longValue(JsonNode node) {
+        if (node.isArray() && node.size() == 2) {
+            return node.get(1).asLong();
+        }
+        return node.asLong();
+    }
+
+    private static boolean isMd5Hex(String etag) {
+        if (etag.length() != 32) {
+            return false;
+        }
+        for (int i = 0; i < 32; i++) {
+            char c = etag.charAt(i);
+            // 只接受小写，保证解码后与原值完全一致
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int writeVarint(byte[] out, int pos, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("varint不支持负数: " + value);
+        }
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint格式错误");
+    }
+}
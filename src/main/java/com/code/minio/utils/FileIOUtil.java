@@ -1,19 +1,270 @@
 package com.code.minio.utils;
 
+import com.code.minio.config.DownloadProperties;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioAsyncClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并行范围下载
+ * 按statObject得到的对象大小切分字节范围，用MinioAsyncClient并发发起带offset/length的GET，
+ * 每个范围通过FileChannel按位置写入本地文件；范围失败时单独重试，已完成的范围记录在日志文件中，中断后再次调用可续传
+ */
 @Component
+@Slf4j
 public class FileIOUtil {
 
+    private static final String TEMP_SUFFIX = ".download";
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    @Autowired
+    private MinioAsyncClient minioAsyncClient;
+
+    @Autowired
+    private DownloadProperties downloadProperties;
+
+    @Autowired
+    private ThreadPoolTaskExecutor downloadExecutor;
+
+    /**
+     * 下载对象到本地文件
+     * 下载过程中数据写入"目标文件.download"，完成的范围记录在"目标文件.journal"，全部完成后改名为目标文件；
+     * 失败时保留这两个文件，对象未变化时再次调用只下载缺失的范围
+     *
+     * @param bucket 桶名称
+     * @param objectName 对象名称
+     * @param target 本地目标文件
+     * @return 下载统计：size、ranges、resumedRanges、retries、elapsedMillis
+     */
+    public Map<String, Object> download(String bucket, String objectName, Path target) throws Exception {
+        long startNanos = System.nanoTime();
+        StatObjectResponse stat = minioAsyncClient.statObject(StatObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .build()).get();
+        long size = stat.size();
+        String etag = stat.etag();
+        long rangeSize = Math.max(1, downloadProperties.getRangeSize());
+        int rangeCount = (int) Math.max(1, (size + rangeSize - 1) / rangeSize);
+
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        Path journalPath = target.resolveSibling(target.getFileName() + JOURNAL_SUFFIX);
+
+        AtomicInteger retries = new AtomicInteger();
+        int resumed;
+        try (Journal journal = Journal.open(journalPath, temp, etag, size, rangeSize);
+             FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            resumed = journal.completedCount();
+            if (resumed > 0) {
+                log.info("续传下载: object={}, completed={}/{}", objectName, resumed, rangeCount);
+            }
+
+            Semaphore permits = new Semaphore(Math.max(1, downloadProperties.getRangeConcurrency()));
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            for (int i = 0; i < rangeCount && failure.get() == null; i++) {
+                if (journal.isCompleted(i)) {
+                    continue;
+                }
+                int index = i;
+                long offset = index * rangeSize;
+                long length = Math.min(rangeSize, size - offset);
+                permits.acquire();
+                CompletableFuture<Void> future = fetchRange(bucket, objectName, etag, channel, offset, length, 0, retries)
+                        .thenRun(() -> {
+                            try {
+                                // 数据落盘后再记日志，保证日志中的范围在崩溃后仍然有效
+                                channel.force(false);
+                                journal.markCompleted(index);
+                            } catch (IOException e) {
+                                throw new CompletionException(e);
+                            }
+                        });
+                futures.add(future.whenComplete((v, e) -> {
+                    permits.release();
+                    if (e != null) {
+                        failure.compareAndSet(null, e);
+                    }
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+            if (failure.get() != null) {
+                Throwable cause = failure.get() instanceof CompletionException && failure.get().getCause() != null
+                        ? failure.get().getCause() : failure.get();
+                log.error("并行下载失败，可重新调用续传: object={}, error={}", objectName, cause.getMessage());
+                throw new RuntimeException("并行下载失败: " + objectName, cause);
+            }
+            if (size == 0) {
+                channel.truncate(0);
+            }
+            channel.force(true);
+        }
 
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(journalPath);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("并行下载完成: object={}, size={}, ranges={}, resumed={}, retries={}, elapsed={}ms",
+                objectName, size, rangeCount, resumed, retries.get(), elapsedMillis);
 
+        Map<String, Object> result = new HashMap<>();
+        result.put("objectName", objectName);
+        result.put("path", target.toString());
+        result.put("size", size);
+        result.put("ranges", rangeCount);
+        result.put("resumedRanges", resumed);
+        result.put("retries", retries.get());
+        result.put("elapsedMillis", elapsedMillis);
+        return result;
+    }
 
+    /**
+     * 下载一个字节范围并写到文件的对应位置，失败后按退避间隔重试
+     * 请求带上开始时的ETag，对象在下载期间被覆盖时直接失败，避免拼接出新旧混合的文件
+     */
+    private CompletableFuture<Void> fetchRange(String bucket, String objectName, String etag, FileChannel channel,
+                                               long offset, long length, int attempt, AtomicInteger retries) {
+        if (length <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<GetObjectResponse> request;
+        try {
+            request = minioAsyncClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(objectName)
+                    .offset(offset)
+                    .length(length)
+                    .matchETag(etag)
+                    .build());
+        } catch (Exception e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        // 响应体的读取是阻塞的，放到下载线程池中执行，不占用OkHttp的回调线程
+        return request.thenAcceptAsync(response -> writeRange(response, channel, offset, length), downloadExecutor)
+                .handle((v, e) -> e)
+                .thenCompose(e -> {
+                    if (e == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (attempt >= downloadProperties.getMaxRetries()) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    retries.incrementAndGet();
+                    long delay = downloadProperties.getRetryBackoff().toMillis() * (attempt + 1);
+                    log.warn("范围下载失败，{}ms后重试: object={}, offset={}, attempt={}, error={}",
+                            delay, objectName, offset, attempt + 1, e.getMessage());
+                    Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, downloadExecutor);
+                    return CompletableFuture.runAsync(() -> { }, delayed)
+                            .thenCompose(x -> fetchRange(bucket, objectName, etag, channel, offset, length, attempt + 1, retries));
+                });
+    }
 
+    private void writeRange(GetObjectResponse response, FileChannel channel, long offset, long length) {
+        byte[] bytes = new byte[downloadProperties.getBufferSize()];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = offset;
+        long remaining = length;
+        try (response) {
+            while (remaining > 0) {
+                int n = response.read(bytes, 0, (int) Math.min(bytes.length, remaining));
+                if (n < 0) {
+                    throw new IOException("范围内容提前结束: offset=" + offset + ", remaining=" + remaining);
+                }
+                buffer.clear().limit(n);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                remaining -= n;
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
 
+    /**
+     * 下载进度日志
+     * 第一行记录对象的ETag、大小和范围大小，之后每行一个已完成的范围序号；
+     * 第一行与当前对象不一致（对象被覆盖或配置变化）时丢弃旧的进度和临时文件
+     */
+    private static final class Journal implements Closeable {
+        private final FileChannel channel;
+        private final BitSet completed;
 
+        private Journal(FileChannel channel, BitSet completed) {
+            this.channel = channel;
+            this.completed = completed;
+        }
 
+        static Journal open(Path path, Path dataFile, String etag, long size, long rangeSize) throws IOException {
+            String header = etag + " " + size + " " + rangeSize;
+            BitSet completed = new BitSet();
+            boolean resumable = false;
+            if (Files.exists(path) && Files.exists(dataFile)) {
+                // 最后一段没有换行符说明崩溃时只写了一半，丢弃
+                String[] lines = Files.readString(path, StandardCharsets.UTF_8).split("\n", -1);
+                if (lines.length > 1 && header.equals(lines[0])) {
+                    resumable = true;
+                    for (int i = 1; i < lines.length - 1; i++) {
+                        completed.set(Integer.parseInt(lines[i].trim()));
+                    }
+                }
+            }
+            if (!resumable) {
+                Files.deleteIfExists(dataFile);
+                Files.writeString(path, header + "\n", StandardCharsets.UTF_8);
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            return new Journal(channel, completed);
+        }
 
+        synchronized boolean isCompleted(int index) {
+            return completed.get(index);
+        }
 
+        synchronized int completedCount() {
+            return completed.cardinality();
+        }
 
+        synchronized void markCompleted(int index) throws IOException {
+            completed.set(index);
+            channel.write(ByteBuffer.wrap((index + "\n").getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        }
 
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
 }
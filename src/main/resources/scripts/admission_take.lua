@@ -0,0 +1,35 @@
+-- 原子地从多个令牌桶取令牌，所有桶的令牌都足够时才扣减
+-- KEYS[i] 令牌桶hash(tokens, ts)
+-- ARGV[3i-2] 每秒速率  ARGV[3i-1] 桶容量  ARGV[3i] 本次消耗，超过容量时按容量计算
+-- 返回 0 已放行；大于0 令牌不足，需要等待的毫秒数
+redis.replicate_commands()
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local remaining = {}
+local wait = 0
+for i, key in ipairs(KEYS) do
+    local rate = tonumber(ARGV[3 * i - 2])
+    local burst = tonumber(ARGV[3 * i - 1])
+    local cost = math.min(tonumber(ARGV[3 * i]), burst)
+    local state = redis.call('HMGET', key, 'tokens', 'ts')
+    local available = burst
+    if state[1] and state[2] then
+        local elapsed = math.max(0, now - tonumber(state[2]))
+        available = math.min(burst, tonumber(state[1]) + elapsed * rate / 1000)
+    end
+    if available < cost then
+        wait = math.max(wait, math.ceil((cost - available) * 1000 / rate))
+    end
+    remaining[i] = available - cost
+end
+if wait > 0 then
+    return wait
+end
+for i, key in ipairs(KEYS) do
+    local rate = tonumber(ARGV[3 * i - 2])
+    local burst = tonumber(ARGV[3 * i - 1])
+    redis.call('HSET', key, 'tokens', tostring(remaining[i]), 'ts', now)
+    -- 桶回满后不再需要保存
+    redis.call('PEXPIRE', key, math.ceil(burst * 1000 / rate) + 1000)
+end
+return 0
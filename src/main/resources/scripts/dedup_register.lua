@@ -0,0 +1,8 @@
+-- 登记去重索引，已有条目时保留先登记的对象；整个条目一次写入，不会出现只有对象名的半条记录
+-- KEYS[1] 去重hash  ARGV[1] 对象名  ARGV[2] 大小  ARGV[3] ETag
+-- 返回 1 已登记 / 0 已存在
+if redis.call('HSETNX', KEYS[1], 'objectKey', ARGV[1]) == 0 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'size', ARGV[2], 'etag', ARGV[3])
+return 1
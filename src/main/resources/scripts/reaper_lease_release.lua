@@ -0,0 +1,6 @@
+-- 释放清理租约，只有持有者可以释放
+-- KEYS[1] 租约键  ARGV[1] 持有者标识
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
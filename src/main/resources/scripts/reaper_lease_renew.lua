@@ -0,0 +1,6 @@
+-- 续期清理租约，只有持有者可以续期
+-- KEYS[1] 租约键  ARGV[1] 持有者标识  ARGV[2] 有效期(毫秒)
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,7 @@
+-- 记录分片开始上传的时间并刷新过期时间
+-- 同一分片的多次上传只保留最早的开始时间
+-- KEYS[1] 进行中分片hash
+-- ARGV[1] 分片号  ARGV[2] 开始时间(毫秒)  ARGV[3] 过期时间(秒)
+redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2])
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+return 1
@@ -0,0 +1,18 @@
+-- 抢占会话用于合并，并返回会话字段和全部分片
+-- KEYS[1] 会话hash  KEYS[2] 分片hash
+-- 返回 {'OK', 会话字段数n, 会话字段1, 值1, ...（共n项）, 分片号1, 分片信息1, ...} / {'MISSING'} / {'CLAIMED'}
+local state = redis.call('HGET', KEYS[1], 'state')
+if not state then
+    return {'MISSING'}
+end
+if state ~= 'active' then
+    return {'CLAIMED'}
+end
+redis.call('HSET', KEYS[1], 'state', 'completing')
+local result = redis.call('HGETALL', KEYS[1])
+table.insert(result, 1, #result)
+table.insert(result, 1, 'OK')
+for _, value in ipairs(redis.call('HGETALL', KEYS[2])) do
+    table.insert(result, value)
+end
+return result
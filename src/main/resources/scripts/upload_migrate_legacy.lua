@@ -0,0 +1,24 @@
+-- 把升级前以字符串保存的会话及逐个保存的分片转换为hash格式
+-- KEYS[1] 会话键  KEYS[2] 分片hash  KEYS[3..] 旧的分片键 upload_part:<uploadId>:<分片号>
+-- ARGV[1] 过期时间(秒)  ARGV[2] 会话字段的参数个数n  ARGV[3..2+n] 会话字段与值  其后为 分片号与分片信息
+-- 返回 1 已转换  0 会话已不是旧格式（其它节点已转换或会话已删除）
+if redis.call('TYPE', KEYS[1]).ok ~= 'string' then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+local sessionEnd = 2 + tonumber(ARGV[2])
+for i = 3, sessionEnd, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+redis.call('HSET', KEYS[1], 'state', 'active')
+for i = sessionEnd + 1, #ARGV, 2 do
+    redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1])
+end
+for i = 3, #KEYS do
+    redis.call('DEL', KEYS[i])
+end
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+if #ARGV > sessionEnd then
+    redis.call('EXPIRE', KEYS[2], ARGV[1])
+end
+return 1
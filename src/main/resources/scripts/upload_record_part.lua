@@ -0,0 +1,21 @@
+-- 校验会话、记录分片、刷新过期时间
+-- 同一分片号只记录第一个完成的上传，之后完成的对冲上传不覆盖
+-- KEYS[1] 会话hash  KEYS[2] 分片hash  KEYS[3] 进行中分片hash
+-- ARGV[1] 分片号  ARGV[2] 分片信息  ARGV[3] 过期时间(秒)
+-- 返回 {'OK'} 已记录 / {'DUP', 已记录的分片信息} / {'MISSING'} 会话不存在 / {'CLAIMED'} 会话已进入合并
+local state = redis.call('HGET', KEYS[1], 'state')
+if not state then
+    return {'MISSING'}
+end
+local existing = redis.call('HGET', KEYS[2], ARGV[1])
+if existing then
+    return {'DUP', existing}
+end
+if state ~= 'active' then
+    return {'CLAIMED'}
+end
+redis.call('HSET', KEYS[2], ARGV[1], ARGV[2])
+redis.call('HDEL', KEYS[3], ARGV[1])
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+redis.call('EXPIRE', KEYS[2], ARGV[3])
+return {'OK'}
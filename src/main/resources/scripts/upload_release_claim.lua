@@ -0,0 +1,7 @@
+-- 合并失败时释放会话，允许重新合并
+-- KEYS[1] 会话hash
+if redis.call('HGET', KEYS[1], 'state') == 'completing' then
+    redis.call('HSET', KEYS[1], 'state', 'active')
+    return 1
+end
+return 0
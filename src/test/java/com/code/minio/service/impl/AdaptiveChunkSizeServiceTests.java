@@ -0,0 +1,135 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.UploadProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应分片大小的模型收敛与S3限制
+ * 用简化的网络模型模拟上传：分片耗时 = 固定开销 + 分片大小 / min(单流带宽, 总带宽 / 并发数)，
+ * 结果只取决于模型计算，不依赖实际耗时；推荐接口本身的耗时见src/jmh/java下的AdaptiveChunkSizeBenchmark
+ */
+class AdaptiveChunkSizeServiceTests {
+
+    private static final long MB = 1024 * 1024;
+    private static final long GB = 1024 * MB;
+    private static final int STATIC_PARALLELISM = 4;
+    private static final double TARGET_SECONDS = new UploadProperties().getAdaptive().getTargetPartLatency().toMillis() / 1000.0;
+
+    private AdaptiveChunkSizeService adaptiveChunkSizeService;
+    private MinioChunkUploadService minioChunkUploadService;
+
+    /**
+     * 模拟的网络环境
+     * @param streamBandwidth 单流带宽（字节/秒）
+     * @param totalBandwidth 总带宽（字节/秒）
+     * @param overhead 每个分片的固定开销（秒）
+     */
+    record Network(String name, double streamBandwidth, double totalBandwidth, double overhead) {
+
+        double partSeconds(long partSize, int parallelism) {
+            return overhead + partSize / Math.min(streamBandwidth, totalBandwidth / parallelism);
+        }
+
+        /**
+         * 分片在并发的上传通道间流水线执行，总耗时约为 分片数 / 并发数 个分片耗时
+         */
+        double totalSeconds(long fileSize, long partSize, int parallelism) {
+            long parts = (fileSize + partSize - 1) / partSize;
+            return Math.max(1, (double) parts / parallelism) * partSeconds(partSize, Math.min(parallelism, (int) parts));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        minioChunkUploadService = new MinioChunkUploadService();
+        adaptiveChunkSizeService = new AdaptiveChunkSizeService(new UploadProperties(), minioChunkUploadService);
+    }
+
+    @Test
+    void convergesTowardsTargetLatency() {
+        Network[] networks = {
+                new Network("4G移动网络", 1.5 * MB, 4 * MB, 0.3),
+                new Network("家庭宽带", 5 * MB, 12 * MB, 0.08),
+                new Network("办公网", 20 * MB, 60 * MB, 0.03),
+                new Network("机房内网", 100 * MB, 1000 * MB, 0.005),
+        };
+        long[] fileSizes = {200 * MB, 2 * GB, 20 * GB};
+
+        for (Network network : networks) {
+            for (long fileSize : fileSizes) {
+                String label = network.name() + " " + fileSize / MB + "MB";
+                Map<String, Object> recommendation = train(network, fileSize);
+                long partSize = (Long) recommendation.get("partSize");
+                int parallelism = (Integer) recommendation.get("parallelism");
+                int partCount = (Integer) recommendation.get("partCount");
+                assertEquals("adaptive", recommendation.get("source"), label);
+
+                // S3限制
+                assertTrue(partSize >= AdaptiveChunkSizeService.MIN_PART_SIZE || partSize == fileSize, label);
+                assertTrue(partSize <= AdaptiveChunkSizeService.MAX_PART_SIZE, label);
+                assertTrue(partCount <= AdaptiveChunkSizeService.MAX_PARTS, label);
+
+                // 单个分片耗时不超过目标值；文件足够大、分片数多于并发数时接近目标值
+                double partSeconds = network.partSeconds(partSize, parallelism);
+                assertTrue(partSeconds <= TARGET_SECONDS * 1.1, label + ": " + partSeconds + "s");
+                if (fileSize == 20 * GB) {
+                    assertTrue(partSeconds >= TARGET_SECONDS * 0.9, label + ": " + partSeconds + "s");
+                }
+
+                // 自适应结果不应比静态分档明显更慢
+                long staticPartSize = Math.max(AdaptiveChunkSizeService.MIN_PART_SIZE,
+                        minioChunkUploadService.calculateOptimalChunkSize(fileSize));
+                double staticTotal = network.totalSeconds(fileSize, staticPartSize, STATIC_PARALLELISM);
+                double adaptiveTotal = network.totalSeconds(fileSize, partSize, parallelism);
+                assertTrue(adaptiveTotal <= staticTotal * 1.1, label + ": " + adaptiveTotal + "s > " + staticTotal + "s");
+            }
+        }
+    }
+
+    @Test
+    void fallsBackToStaticTableWithoutSamples() {
+        Map<String, Object> recommendation = adaptiveChunkSizeService.recommend("10.0.0.0/24", 2 * GB);
+        assertEquals("static", recommendation.get("source"));
+        long staticPartSize = Math.max(AdaptiveChunkSizeService.MIN_PART_SIZE,
+                minioChunkUploadService.calculateOptimalChunkSize(2 * GB));
+        assertEquals(AdaptiveChunkSizeService.clampPartSize(staticPartSize, 2 * GB), recommendation.get("partSize"));
+        assertEquals(new UploadProperties().getAdaptive().getDefaultParallelism(), recommendation.get("parallelism"));
+    }
+
+    @Test
+    void respectsPartCountLimit() {
+        Network network = new Network("慢速网络", 0.5 * MB, 1 * MB, 0.5);
+        long fileSize = 4L * 1024 * GB;
+        Map<String, Object> recommendation = train(network, fileSize);
+        assertTrue((Integer) recommendation.get("partCount") <= AdaptiveChunkSizeService.MAX_PARTS);
+        assertTrue((Long) recommendation.get("partSize") <= AdaptiveChunkSizeService.MAX_PART_SIZE);
+    }
+
+    /**
+     * 按推荐参数反复"上传"若干分片，直到推荐不再变化（模型收敛）后返回最终推荐
+     */
+    private Map<String, Object> train(Network network, long fileSize) {
+        String networkKey = network.name() + fileSize;
+        Map<String, Object> recommendation = adaptiveChunkSizeService.recommend(networkKey, fileSize);
+        for (int round = 0; round < 16; round++) {
+            long partSize = (Long) recommendation.get("partSize");
+            int parallelism = (Integer) recommendation.get("parallelism");
+            long nanos = (long) (network.partSeconds(partSize, parallelism) * 1e9);
+            for (int i = 0; i < 4; i++) {
+                adaptiveChunkSizeService.record(networkKey, partSize, nanos, parallelism);
+            }
+            Map<String, Object> next = adaptiveChunkSizeService.recommend(networkKey, fileSize);
+            if (round > 0 && next.get("partSize").equals(partSize) && next.get("parallelism").equals(parallelism)) {
+                return next;
+            }
+            recommendation = next;
+        }
+        throw new AssertionError(network.name() + " " + fileSize / MB + "MB: 推荐未收敛");
+    }
+}
@@ -0,0 +1,67 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.ImageProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageDerivativeServiceTests {
+
+    private ThreadPoolTaskExecutor imageExecutor;
+    private ImageProperties imageProperties;
+    private ImageDerivativeService imageDerivativeService;
+
+    @BeforeEach
+    void setUp() {
+        imageExecutor = new ThreadPoolTaskExecutor();
+        imageExecutor.initialize();
+        imageProperties = new ImageProperties();
+        imageProperties.setMaxSourcePixels(100);
+        imageDerivativeService = new ImageDerivativeService();
+        ReflectionTestUtils.setField(imageDerivativeService, "imageProperties", imageProperties);
+        ReflectionTestUtils.setField(imageDerivativeService, "imageExecutor", imageExecutor);
+        ReflectionTestUtils.setField(imageDerivativeService, "meterRegistry", new SimpleMeterRegistry());
+        imageDerivativeService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageExecutor.shutdown();
+    }
+
+    @Test
+    void decodesImageWithinPixelLimit() throws IOException {
+        BufferedImage image = imageDerivativeService.decode("a.png", png(10, 10));
+        assertNotNull(image);
+        assertEquals(10, image.getWidth());
+    }
+
+    @Test
+    void skipsImageOverPixelLimitWithoutDecoding() throws IOException {
+        assertNull(imageDerivativeService.decode("a.png", png(11, 10)));
+    }
+
+    @Test
+    void skipsUnsupportedFormat() throws IOException {
+        assertNull(imageDerivativeService.decode("a.png", "not an image".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+        return output.toByteArray();
+    }
+}
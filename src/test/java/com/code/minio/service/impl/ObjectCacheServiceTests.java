@@ -0,0 +1,139 @@
+package com.code.minio.service.impl;
+
+import com.code.minio.config.CacheProperties;
+import com.code.minio.config.MinioProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ObjectCacheServiceTests {
+
+    private static final String BUCKET = "bucket";
+    private static final String OBJECT = "image/20240101/a.png";
+    private static final byte[] CONTENT = "hello".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path diskDir;
+
+    private MinioClient minioClient;
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor cacheFillExecutor;
+    private ObjectCacheService objectCacheService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioClient = mock(MinioClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        MinioProperties minioProperties = new MinioProperties();
+        minioProperties.setDefaultBucket(BUCKET);
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setDiskDir(diskDir.toString());
+        // 每次读取都重新验证
+        cacheProperties.setRevalidateAfter(Duration.ZERO);
+        cacheFillExecutor = new ThreadPoolTaskExecutor();
+        cacheFillExecutor.setCorePoolSize(1);
+        cacheFillExecutor.setMaxPoolSize(1);
+        cacheFillExecutor.initialize();
+
+        objectCacheService = new ObjectCacheService();
+        ReflectionTestUtils.setField(objectCacheService, "minioClient", minioClient);
+        ReflectionTestUtils.setField(objectCacheService, "minioProperties", minioProperties);
+        ReflectionTestUtils.setField(objectCacheService, "cacheProperties", cacheProperties);
+        ReflectionTestUtils.setField(objectCacheService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(objectCacheService, "cacheFillExecutor", cacheFillExecutor);
+        objectCacheService.init();
+
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(invocation ->
+                new GetObjectResponse(headers("abc"), BUCKET, "", OBJECT, new ByteArrayInputStream(CONTENT)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheFillExecutor.shutdown();
+    }
+
+    @Test
+    void unchangedETagRevalidatesWithoutDownload() throws Exception {
+        assertNotNull(objectCacheService.fill(OBJECT, stat("abc")));
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat("abc"));
+
+        ObjectCacheService.CachedObject cached = objectCacheService.get(OBJECT);
+
+        assertNotNull(cached);
+        assertSame(cached, objectCacheService.get(OBJECT));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cached.writeTo(out, 0, CONTENT.length);
+        assertEquals("hello", out.toString(StandardCharsets.UTF_8));
+        verify(minioClient, times(1)).getObject(any(GetObjectArgs.class));
+        assertEquals(2.0, meterRegistry.get("minio.object.cache.revalidations")
+                .tag("result", "not_modified").counter().count());
+    }
+
+    @Test
+    void changedETagDropsEntry() throws Exception {
+        assertNotNull(objectCacheService.fill(OBJECT, stat("abc")));
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat("def"));
+
+        assertNull(objectCacheService.get(OBJECT));
+        assertEquals(1.0, meterRegistry.get("minio.object.cache.revalidations")
+                .tag("result", "modified").counter().count());
+        // 条目已丢弃，之后按未命中处理，不再验证
+        assertNull(objectCacheService.get(OBJECT));
+        verify(minioClient, times(1)).statObject(any(StatObjectArgs.class));
+    }
+
+    @Test
+    void admitsOnSecondMissInBackground() throws Exception {
+        StatObjectResponse stat = stat("abc");
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat);
+
+        objectCacheService.admitAsync(OBJECT, stat);
+        verify(minioClient, never()).getObject(any(GetObjectArgs.class));
+
+        objectCacheService.admitAsync(OBJECT, stat);
+        cacheFillExecutor.getThreadPoolExecutor().shutdown();
+        cacheFillExecutor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+        verify(minioClient, times(1)).getObject(any(GetObjectArgs.class));
+        assertNotNull(objectCacheService.get(OBJECT));
+    }
+
+    private static StatObjectResponse stat(String etag) {
+        return new StatObjectResponse(headers(etag), BUCKET, "", OBJECT);
+    }
+
+    private static Headers headers(String etag) {
+        return Headers.of(
+                "ETag", "\"" + etag + "\"",
+                "Content-Length", String.valueOf(CONTENT.length),
+                "Content-Type", "image/png",
+                "Last-Modified", "Mon, 01 Jan 2024 00:00:00 GMT");
+    }
+}
@@ -0,0 +1,105 @@
+package com.code.minio.util;
+
+import com.code.minio.config.AsyncProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * I/O线程池的并发上限与池满时的503
+ * 同步与异步模式的吞吐对比见src/jmh下的AsyncIoExecutorBenchmark
+ */
+class AsyncIoExecutorTests {
+
+    private static final int IO_THREADS = 4;
+    private static final int TASKS = 32;
+    private static final long TASK_MILLIS = 20;
+
+    private ThreadPoolTaskExecutor ioExecutor;
+    private ThreadPoolTaskExecutor streamExecutor;
+    private AsyncProperties asyncProperties;
+    private AsyncIoExecutor asyncIoExecutor;
+
+    @BeforeEach
+    void setUp() {
+        ioExecutor = executor(IO_THREADS, TASKS);
+        streamExecutor = executor(1, 0);
+        asyncProperties = new AsyncProperties();
+        asyncIoExecutor = new AsyncIoExecutor(asyncProperties, ioExecutor, streamExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ioExecutor.shutdown();
+        streamExecutor.shutdown();
+    }
+
+    @Test
+    void boundsConcurrentTasksByPoolSize() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<ResponseEntity<Map<String, Object>>>> futures = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            futures.add(asyncIoExecutor.respond(() -> {
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(TASK_MILLIS);
+                } finally {
+                    active.decrementAndGet();
+                }
+                return ResponseEntity.ok(Map.of("code", 200));
+            }));
+        }
+        for (CompletableFuture<ResponseEntity<Map<String, Object>>> future : futures) {
+            assertEquals(200, future.join().getStatusCode().value());
+        }
+        assertTrue(peak.get() <= IO_THREADS, "最大并发: " + peak.get());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        ioExecutor.shutdown();
+        ioExecutor = executor(1, 0);
+        asyncIoExecutor = new AsyncIoExecutor(asyncProperties, ioExecutor, streamExecutor);
+        List<CompletableFuture<ResponseEntity<Map<String, Object>>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(asyncIoExecutor.respond(() -> {
+                Thread.sleep(TASK_MILLIS * 5);
+                return ResponseEntity.ok(Map.of("code", 200));
+            }));
+        }
+        List<ResponseEntity<Map<String, Object>>> responses = futures.stream().map(CompletableFuture::join).toList();
+        assertEquals(3, responses.stream().filter(response -> response.getStatusCode().value() == 503).count());
+        responses.stream().filter(response -> response.getStatusCode().value() == 503)
+                .forEach(response -> assertEquals("1", response.getHeaders().getFirst("Retry-After")));
+    }
+
+    @Test
+    void runsOnRequestThreadWhenDisabled() {
+        asyncProperties.setEnabled(false);
+        Thread caller = Thread.currentThread();
+        ResponseEntity<Map<String, Object>> response = asyncIoExecutor.respond(
+                () -> ResponseEntity.ok(Map.<String, Object>of("sameThread", Thread.currentThread() == caller))).join();
+        assertEquals(true, response.getBody().get("sameThread"));
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+}
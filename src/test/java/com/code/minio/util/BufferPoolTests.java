@@ -0,0 +1,58 @@
+package com.code.minio.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 多个缓冲区池共享内存预算
+ */
+class BufferPoolTests {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Test
+    void poolsShareOneBudget() throws Exception {
+        MemoryBudget budget = new MemoryBudget(3L * BUFFER_SIZE);
+        BufferPool first = new BufferPool(BUFFER_SIZE, 4, false, budget);
+        BufferPool second = new BufferPool(BUFFER_SIZE, 4, false, budget);
+
+        assertNotNull(first.acquire(0, TimeUnit.MILLISECONDS));
+        assertNotNull(first.acquire(0, TimeUnit.MILLISECONDS));
+        ByteBuffer buffer = second.acquire(0, TimeUnit.MILLISECONDS);
+        assertNotNull(buffer);
+        // 两个池的容量都未用完，但共享预算已耗尽
+        assertNull(first.acquire(0, TimeUnit.MILLISECONDS));
+        assertNull(second.acquire(0, TimeUnit.MILLISECONDS));
+        assertEquals(1, second.getInUse());
+
+        // 归还的缓冲区在本池内复用，不再占用新的预算
+        second.release(buffer);
+        assertNotNull(second.acquire(0, TimeUnit.MILLISECONDS));
+        assertEquals(3L * BUFFER_SIZE, budget.getInUseBytes());
+    }
+
+    @Test
+    void closeReturnsBudget() throws Exception {
+        MemoryBudget budget = new MemoryBudget(2L * BUFFER_SIZE);
+        BufferPool first = new BufferPool(BUFFER_SIZE, 2, false, budget);
+        first.release(first.acquire(0, TimeUnit.MILLISECONDS));
+        first.release(first.acquire(0, TimeUnit.MILLISECONDS));
+        ByteBuffer held = first.acquire(0, TimeUnit.MILLISECONDS);
+        ByteBuffer other = first.acquire(0, TimeUnit.MILLISECONDS);
+        first.release(held);
+        first.release(other);
+        assertEquals(2L * BUFFER_SIZE, budget.getInUseBytes());
+
+        first.close();
+        assertEquals(0, budget.getInUseBytes());
+        BufferPool second = new BufferPool(BUFFER_SIZE, 2, false, budget);
+        assertNotNull(second.acquire(0, TimeUnit.MILLISECONDS));
+        assertNotNull(second.acquire(0, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,74 @@
+package com.code.minio.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式压缩的往返正确性与各类内容的压缩率范围
+ * 压缩率由内容决定，用于确认哪些业务类型值得开启压缩；吞吐量见src/jmh/java下的CompressionBenchmark
+ */
+class CompressionCodecTests {
+
+    private static final int SIZE = 2 * 1024 * 1024;
+    private static final int[] LEVELS = {1, 6, 9};
+
+    @Test
+    void roundTripAndRatioByContentType() throws IOException {
+        for (Map.Entry<String, byte[]> sample : CompressionSamples.all(SIZE).entrySet()) {
+            String type = sample.getKey();
+            byte[] original = sample.getValue();
+            double previousRatio = Double.MAX_VALUE;
+            for (int level : LEVELS) {
+                byte[] compressed = readAll(CompressionCodec.GZIP.compress(new ByteArrayInputStream(original), level));
+                byte[] restored = readAll(CompressionCodec.GZIP.decompress(new ByteArrayInputStream(compressed)));
+                assertArrayEquals(original, restored, type + " 级别" + level + " 解压后内容不一致");
+
+                double ratio = (double) compressed.length / original.length;
+                String label = type + " 级别" + level + " 压缩率: " + ratio;
+                switch (type) {
+                    // 文本类内容压缩效果明显
+                    case "json", "log" -> assertTrue(ratio < 0.3, label);
+                    // 30%文本、70%已压缩数据
+                    case "pdf" -> assertTrue(ratio > 0.6 && ratio < 0.85, label);
+                    // 随机内容几乎无收益，不应开启
+                    default -> assertTrue(ratio > 0.99, label);
+                }
+                // 级别越高压缩率不应变差（允许随机内容的头部开销差异）
+                assertTrue(ratio <= previousRatio + 0.001, label);
+                previousRatio = ratio;
+            }
+        }
+    }
+
+    @Test
+    void emptyAndSmallReads() throws IOException {
+        byte[] compressed = readAll(CompressionCodec.GZIP.compress(new ByteArrayInputStream(new byte[0]), 6));
+        assertArrayEquals(new byte[0], readAll(CompressionCodec.GZIP.decompress(new ByteArrayInputStream(compressed))));
+
+        // 逐字节读取压缩流，验证头部、数据和尾部的拼接
+        byte[] original = CompressionSamples.log(100_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = CompressionCodec.GZIP.compress(new ByteArrayInputStream(original), 6)) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                out.write(b);
+            }
+        }
+        byte[] restored = readAll(CompressionCodec.GZIP.decompress(new ByteArrayInputStream(out.toByteArray())));
+        assertArrayEquals(original, restored);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.code.minio.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 压缩测试和基准测试使用的模拟上传内容，固定随机种子，每次生成的内容相同
+ * 包括JSON导出、日志、类PDF（文本与已压缩数据混合）和随机二进制内容
+ */
+final class CompressionSamples {
+
+    private CompressionSamples() {
+    }
+
+    static Map<String, byte[]> all(int size) {
+        Map<String, byte[]> samples = new LinkedHashMap<>();
+        samples.put("json", json(size));
+        samples.put("log", log(size));
+        samples.put("pdf", pdfLike(size));
+        samples.put("binary", random(size, 1));
+        return samples;
+    }
+
+    static byte[] json(int size) {
+        Random random = new Random(2);
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append('[');
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("{\"id\":").append(i)
+                    .append(",\"userId\":").append(random.nextInt(100_000))
+                    .append(",\"status\":\"").append(random.nextBoolean() ? "PAID" : "PENDING")
+                    .append("\",\"amount\":").append(random.nextInt(1_000_000) / 100.0)
+                    .append(",\"createTime\":\"2024-01-").append(10 + random.nextInt(20))
+                    .append("T12:").append(10 + random.nextInt(50)).append(":00Z\"},\n");
+        }
+        return truncate(sb.toString().getBytes(StandardCharsets.UTF_8), size);
+    }
+
+    static byte[] log(int size) {
+        Random random = new Random(3);
+        String[] levels = {"INFO", "INFO", "INFO", "DEBUG", "WARN"};
+        String[] messages = {"分片上传成功: uploadId=", "下载完成: object=", "缓存验证失败: object=", "初始化分片上传成功: uploadId="};
+        StringBuilder sb = new StringBuilder(size + 256);
+        while (sb.length() < size) {
+            sb.append("2024-01-15 10:").append(10 + random.nextInt(50)).append(':').append(10 + random.nextInt(50))
+                    .append('.').append(100 + random.nextInt(900)).append(' ')
+                    .append(levels[random.nextInt(levels.length)]).append(" [minio-io-").append(random.nextInt(64))
+                    .append("] c.c.m.s.i.AwsS3MultipartService : ")
+                    .append(messages[random.nextInt(messages.length)]).append(Long.toHexString(random.nextLong()))
+                    .append('\n');
+        }
+        return truncate(sb.toString().getBytes(StandardCharsets.UTF_8), size);
+    }
+
+    /**
+     * PDF通常由文本结构和已经deflate压缩过的内容流、图片组成，这里按3:7混合
+     */
+    static byte[] pdfLike(int size) {
+        byte[] data = new byte[size];
+        byte[] text = log(size);
+        byte[] binary = random(size, 4);
+        int block = 64 * 1024;
+        for (int offset = 0, i = 0; offset < size; offset += block, i++) {
+            int n = Math.min(block, size - offset);
+            System.arraycopy(i % 10 < 3 ? text : binary, offset, data, offset, n);
+        }
+        return data;
+    }
+
+    static byte[] random(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] truncate(byte[] data, int size) {
+        byte[] result = new byte[size];
+        System.arraycopy(data, 0, result, 0, size);
+        return result;
+    }
+}
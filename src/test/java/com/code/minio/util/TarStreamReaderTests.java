@@ -0,0 +1,202 @@
+package com.code.minio.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TarStreamReaderTests {
+
+    @Test
+    void readsFilesAndSkipsDirectories() throws IOException {
+        TarStreamReader reader = reader(new TarBuilder()
+                .entry("docs/", "", '5', "")
+                .file("docs/a.txt", "hello")
+                .file("b.txt", "")
+                .build());
+
+        assertEntry(reader, "docs/a.txt", "hello");
+        assertEntry(reader, "b.txt", "");
+        assertNull(reader.next());
+    }
+
+    @Test
+    void skipsUnreadContent() throws IOException {
+        TarStreamReader reader = reader(new TarBuilder()
+                .file("a.txt", "x".repeat(1000))
+                .file("b.txt", "second")
+                .build());
+
+        assertEquals("a.txt", reader.next().getName());
+        assertEntry(reader, "b.txt", "second");
+    }
+
+    @Test
+    void joinsUstarPrefix() throws IOException {
+        TarStreamReader reader = reader(new TarBuilder()
+                .entry("report.pdf", "pdf", '0', "2024/01/15/department")
+                .build());
+
+        assertEntry(reader, "2024/01/15/department/report.pdf", "pdf");
+    }
+
+    @Test
+    void readsGnuLongName() throws IOException {
+        String longName = "a/".repeat(80) + "file.txt";
+        TarStreamReader reader = reader(new TarBuilder()
+                .entry("././@LongLink", longName + "\0", 'L', "")
+                .file(longName.substring(0, 99), "long")
+                .file("next.txt", "next")
+                .build());
+
+        assertEntry(reader, longName, "long");
+        // 长文件名只作用于紧随其后的条目
+        assertEntry(reader, "next.txt", "next");
+    }
+
+    @Test
+    void readsPaxPathByByteLength() throws IOException {
+        // 记录长度按字节计算，中文路径的字节数大于字符数
+        String path = "报表/二〇二四/汇总.csv";
+        TarStreamReader reader = reader(new TarBuilder()
+                .entry("PaxHeaders/x", paxRecord("mtime", "1705300000") + paxRecord("path", path), 'x', "")
+                .file("truncated.csv", "csv")
+                .build());
+
+        assertEntry(reader, path, "csv");
+    }
+
+    @Test
+    void rejectsMalformedPaxRecords() {
+        for (String records : new String[]{"abc path=x\n", "99 path=x\n", "3 path=x\n", "10 path=x!", "no-space"}) {
+            TarStreamReader reader = reader(new TarBuilder()
+                    .entry("PaxHeaders/x", records, 'x', "")
+                    .file("a.txt", "a")
+                    .build());
+            assertThrows(TarStreamReader.TarFormatException.class, reader::next, records);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedHeader() {
+        byte[] tar = new TarBuilder().file("a.txt", "a").build();
+        TarStreamReader reader = reader(Arrays.copyOf(tar, 100));
+
+        assertThrows(TarStreamReader.TarFormatException.class, reader::next);
+    }
+
+    @Test
+    void rejectsTruncatedContent() throws IOException {
+        byte[] tar = new TarBuilder().file("a.txt", "x".repeat(1000)).build();
+        TarStreamReader reader = reader(Arrays.copyOf(tar, 512 + 600));
+
+        assertEquals("a.txt", reader.next().getName());
+        try (InputStream entry = reader.entryStream()) {
+            assertThrows(TarStreamReader.TarFormatException.class, entry::readAllBytes);
+        }
+    }
+
+    @Test
+    void rejectsCorruptedHeader() {
+        byte[] tar = new TarBuilder().file("a.txt", "a").build();
+        tar[0] = 'b';
+        assertThrows(TarStreamReader.TarFormatException.class, reader(tar)::next);
+
+        // 不是tar的请求体
+        byte[] text = Arrays.copyOf("not a tar archive".getBytes(StandardCharsets.UTF_8), 1024);
+        assertThrows(TarStreamReader.TarFormatException.class, reader(text)::next);
+    }
+
+    @Test
+    void rejectsInvalidSize() {
+        TarBuilder builder = new TarBuilder();
+        byte[] header = builder.header("a.txt", 0, '0', "");
+        System.arraycopy("9999\0".getBytes(StandardCharsets.US_ASCII), 0, header, 124, 5);
+        TarBuilder.checksum(header);
+
+        assertThrows(TarStreamReader.TarFormatException.class, reader(header)::next);
+    }
+
+    private static void assertEntry(TarStreamReader reader, String name, String content) throws IOException {
+        TarStreamReader.Entry entry = reader.next();
+        assertEquals(name, entry.getName());
+        assertEquals(content.getBytes(StandardCharsets.UTF_8).length, entry.getSize());
+        assertEquals(content, new String(reader.entryStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static TarStreamReader reader(byte[] tar) {
+        return new TarStreamReader(new ByteArrayInputStream(tar));
+    }
+
+    /**
+     * pax记录"长度 键=值\n"，长度包含长度字段本身
+     */
+    private static String paxRecord(String key, String value) {
+        int rest = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+        int length = rest + String.valueOf(rest).length();
+        if (String.valueOf(length).length() != String.valueOf(rest).length()) {
+            length++;
+        }
+        return length + " " + key + "=" + value + "\n";
+    }
+
+    /**
+     * 按ustar格式拼装测试用的tar
+     */
+    static final class TarBuilder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        TarBuilder file(String name, String content) {
+            return entry(name, content, '0', "");
+        }
+
+        TarBuilder entry(String name, String content, char type, String prefix) {
+            byte[] data = content.getBytes(StandardCharsets.UTF_8);
+            out.writeBytes(header(name, data.length, type, prefix));
+            out.writeBytes(data);
+            out.writeBytes(new byte[(512 - data.length % 512) % 512]);
+            return this;
+        }
+
+        byte[] header(String name, long size, char type, String prefix) {
+            byte[] header = new byte[512];
+            put(header, 0, name);
+            put(header, 100, "0000644");
+            put(header, 124, String.format("%011o", size));
+            put(header, 136, "14541030000");
+            header[156] = (byte) type;
+            put(header, 257, "ustar");
+            put(header, 263, "00");
+            put(header, 345, prefix);
+            checksum(header);
+            return header;
+        }
+
+        byte[] build() {
+            out.writeBytes(new byte[1024]);
+            return out.toByteArray();
+        }
+
+        static void checksum(byte[] header) {
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            int sum = 0;
+            for (byte b : header) {
+                sum += b & 0xff;
+            }
+            put(header, 148, String.format("%06o\0", sum));
+        }
+
+        private static void put(byte[] header, int offset, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(bytes, 0, header, offset, bytes.length);
+        }
+    }
+}
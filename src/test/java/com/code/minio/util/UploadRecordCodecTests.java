@@ -0,0 +1,77 @@
+package com.code.minio.util;
+
+import com.code.minio.model.UploadPartRecord;
+import com.code.minio.model.UploadSessionRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 分片记录编解码的往返与升级前格式的兼容性，编解码耗时对比见src/jmh/java下的UploadRecordCodecBenchmark
+ */
+class UploadRecordCodecTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final GenericJackson2JsonRedisSerializer REDIS_JSON = new GenericJackson2JsonRedisSerializer();
+
+    private final UploadPartRecord part = new UploadPartRecord(1234, "9b2cf535f27731c974343645a3985328",
+            8L * 1024 * 1024, 1705300000000L, 2350);
+
+    @Test
+    void roundTripAndLegacyJson() throws Exception {
+        assertEquals(part, UploadRecordCodec.decode(UploadRecordCodec.encode(part)));
+
+        // 非MD5格式的ETag（大写、带后缀）按字符串存储
+        UploadPartRecord other = new UploadPartRecord(10000, "ABC-DEF\"x", 0, 0, 0);
+        assertEquals(other, UploadRecordCodec.decode(UploadRecordCodec.encode(other)));
+
+        // 升级前写入的JSON和版本1的二进制记录仍能读取，缺少的上传耗时为0
+        Map<String, Object> legacyMap = toMap(part);
+        legacyMap.remove("durationMillis");
+        UploadPartRecord withoutDuration = new UploadPartRecord(part.getPartNumber(), part.getEtag(),
+                part.getPartSize(), part.getUploadTime(), 0);
+        assertEquals(withoutDuration, UploadRecordCodec.decode(MAPPER.writeValueAsBytes(legacyMap)));
+        byte[] version1 = {UploadRecordCodec.VERSION_1, 0, 3, 10, 20, 2, 'a', 'b'};
+        assertEquals(new UploadPartRecord(3, "ab", 10, 20, 0), UploadRecordCodec.decode(version1));
+    }
+
+    @Test
+    void baselineRedisValues() {
+        // 升级前AwsS3MultipartService通过RedisUtil.set保存的会话和分片，值由RedisTemplate的JSON序列化器写入
+        Map<String, Object> session = new HashMap<>();
+        session.put("objectKey", "20240115/a/report.pdf");
+        session.put("fileName", "report.pdf");
+        session.put("contentType", "application/pdf");
+        session.put("createTime", 1705300000000L);
+        UploadSessionRecord decodedSession = UploadRecordCodec.decodeLegacySession(REDIS_JSON.serialize(session));
+        assertEquals("20240115/a/report.pdf", decodedSession.getObjectKey());
+        assertEquals("report.pdf", decodedSession.getFileName());
+        assertEquals("application/pdf", decodedSession.getContentType());
+        assertEquals(1705300000000L, decodedSession.getCreateTime());
+        assertNull(decodedSession.getSha256());
+
+        Map<String, Object> partInfo = new HashMap<>();
+        partInfo.put("partNumber", 7);
+        partInfo.put("etag", "9b2cf535f27731c974343645a3985328");
+        partInfo.put("partSize", 8L * 1024 * 1024);
+        partInfo.put("uploadTime", 1705300000123L);
+        assertEquals(new UploadPartRecord(7, "9b2cf535f27731c974343645a3985328", 8L * 1024 * 1024, 1705300000123L, 0),
+                UploadRecordCodec.decode(REDIS_JSON.serialize(partInfo)));
+    }
+
+    private static Map<String, Object> toMap(UploadPartRecord part) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("partNumber", part.getPartNumber());
+        map.put("etag", part.getEtag());
+        map.put("partSize", part.getPartSize());
+        map.put("uploadTime", part.getUploadTime());
+        map.put("durationMillis", part.getDurationMillis());
+        return map;
+    }
+}